@@ -0,0 +1,37 @@
+package com.cms.config;
+
+import com.cms.model.User;
+import com.cms.service.NotificationService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.view.RedirectView;
+
+/**
+ * Adds the unread notification count (the sidebar badge) to the model
+ * after the handler has run, and only when it is about to render a view —
+ * redirects, downloads and JSON responses never pay for the lookup.
+ */
+@Component
+public class UnreadCountInterceptor implements HandlerInterceptor {
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+                           ModelAndView modelAndView) {
+        if (modelAndView == null || modelAndView.getView() instanceof RedirectView) return;
+
+        String viewName = modelAndView.getViewName();
+        if (viewName == null || viewName.startsWith("redirect:") || viewName.startsWith("forward:")) return;
+
+        HttpSession session = request.getSession(false);
+        User user = session != null ? (User) session.getAttribute("loggedInUser") : null;
+        modelAndView.addObject("notifCount", user != null ? notificationService.getUnreadCount(user) : 0L);
+    }
+}
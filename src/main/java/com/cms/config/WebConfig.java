@@ -11,9 +11,14 @@ public class WebConfig implements WebMvcConfigurer {
     @Autowired
     private AuthInterceptor authInterceptor;
 
+    @Autowired
+    private UnreadCountInterceptor unreadCountInterceptor;
+
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
         registry.addInterceptor(authInterceptor)
                 .addPathPatterns("/**");
+        registry.addInterceptor(unreadCountInterceptor)
+                .addPathPatterns("/**");
     }
 }
@@ -1,15 +1,22 @@
 package com.cms.controller;
 
 import com.cms.model.User;
+import com.cms.service.ExtractionStats;
+import com.cms.service.PdfExtractionExecutor;
+import com.cms.service.StorageGcService;
+import com.cms.service.StorageMigrationService;
+import com.cms.service.StorageStats;
 import com.cms.service.UserService;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.util.List;
@@ -21,6 +28,15 @@ public class AdminController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private StorageMigrationService storageMigrationService;
+
+    @Autowired
+    private PdfExtractionExecutor pdfExtractionExecutor;
+
+    @Autowired
+    private StorageGcService storageGcService;
+
     // ── Admin: List All Users ────────────────────────────────
     @GetMapping("/users")
     public String listUsers(HttpSession session, Model model) {
@@ -85,4 +101,66 @@ public class AdminController {
         }
         return "redirect:/admin/users";
     }
+
+    // ── Admin: Migrate Uploads to Sharded Layout ─────────────
+    @PostMapping("/storage/migrate")
+    public String migrateStorage(HttpSession session, RedirectAttributes redirectAttributes) {
+        User admin = (User) session.getAttribute("loggedInUser");
+        if (admin == null) return "redirect:/login";
+
+        if (admin.getRole() != User.Role.ADMIN) {
+            redirectAttributes.addFlashAttribute("error", "Access denied");
+            return "redirect:/dashboard";
+        }
+
+        if (storageMigrationService.isRunning()) {
+            redirectAttributes.addFlashAttribute("error", "A storage migration is already running");
+        } else {
+            storageMigrationService.migrateInBackground();
+            redirectAttributes.addFlashAttribute("success", "Storage migration started in the background");
+        }
+        return "redirect:/admin/users";
+    }
+
+    // ── Admin: Orphan Attachment Cleanup ─────────────────────
+    @PostMapping("/storage/gc")
+    public String collectOrphans(HttpSession session, RedirectAttributes redirectAttributes) {
+        User admin = (User) session.getAttribute("loggedInUser");
+        if (admin == null) return "redirect:/login";
+
+        if (admin.getRole() != User.Role.ADMIN) {
+            redirectAttributes.addFlashAttribute("error", "Access denied");
+            return "redirect:/dashboard";
+        }
+
+        if (storageGcService.isRunning() || storageMigrationService.isRunning()) {
+            redirectAttributes.addFlashAttribute("error", "A storage cleanup or migration is already running");
+        } else {
+            storageGcService.collectInBackground();
+            redirectAttributes.addFlashAttribute("success", "Upload cleanup started in the background");
+        }
+        return "redirect:/admin/users";
+    }
+
+    // ── Admin: Storage Usage Metrics (JSON) ──────────────────
+    @GetMapping("/storage/stats")
+    @ResponseBody
+    public ResponseEntity<StorageStats> storageStats(HttpSession session) {
+        User admin = (User) session.getAttribute("loggedInUser");
+        if (admin == null) return ResponseEntity.status(401).build();
+        if (admin.getRole() != User.Role.ADMIN) return ResponseEntity.status(403).build();
+
+        return ResponseEntity.ok(storageGcService.getStats());
+    }
+
+    // ── Admin: PDF Extraction Pool Metrics (JSON) ────────────
+    @GetMapping("/extraction/stats")
+    @ResponseBody
+    public ResponseEntity<ExtractionStats> extractionStats(HttpSession session) {
+        User admin = (User) session.getAttribute("loggedInUser");
+        if (admin == null) return ResponseEntity.status(401).build();
+        if (admin.getRole() != User.Role.ADMIN) return ResponseEntity.status(403).build();
+
+        return ResponseEntity.ok(pdfExtractionExecutor.getStats());
+    }
 }
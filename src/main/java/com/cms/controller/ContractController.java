@@ -1,16 +1,25 @@
 package com.cms.controller;
 
+import com.cms.model.Attachment;
 import com.cms.model.Contract;
+import com.cms.model.DocumentText;
 import com.cms.model.User;
+import com.cms.service.AttachmentService;
+import com.cms.service.BlobContent;
 import com.cms.service.ContractService;
+import com.cms.service.ContractSearchIndex;
+import com.cms.service.DocumentTextService;
+import com.cms.service.FileDownloadService;
 import com.cms.service.FileStorageService;
+import com.cms.service.PageRange;
+import com.cms.service.RenditionService;
+import com.cms.service.SearchHit;
+import com.cms.service.StoredFile;
 import com.cms.service.TextExtractionService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -20,8 +29,8 @@ import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.io.IOException;
-import java.net.MalformedURLException;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -29,6 +38,9 @@ import java.util.stream.Collectors;
 @RequestMapping("/contracts")
 public class ContractController {
 
+    // Pages rendered into view-contract; the rest are fetched on scroll
+    private static final int INITIAL_PAGES = 3;
+
     @Autowired
     private ContractService contractService;
 
@@ -38,6 +50,21 @@ public class ContractController {
     @Autowired
     private TextExtractionService textExtractionService;
 
+    @Autowired
+    private ContractSearchIndex contractSearchIndex;
+
+    @Autowired
+    private DocumentTextService documentTextService;
+
+    @Autowired
+    private FileDownloadService fileDownloadService;
+
+    @Autowired
+    private RenditionService renditionService;
+
+    @Autowired
+    private AttachmentService attachmentService;
+
     // ── Add Contract (GET) ────────────────────────────────────
     @GetMapping("/add")
     public String addContractPage(HttpSession session, Model model) {
@@ -70,8 +97,10 @@ public class ContractController {
         // Handle file upload
         if (file != null && !file.isEmpty()) {
             try {
-                String fileName = fileStorageService.storeFile(file);
-                contract.setFileName(fileName);
+                StoredFile stored = fileStorageService.storeFile(file);
+                contract.setFileName(stored.getFileName());
+                contract.setOriginalFileName(stored.getOriginalName());
+                contract.setFileHash(stored.getContentHash());
             } catch (IllegalArgumentException e) {
                 redirectAttributes.addFlashAttribute("error", e.getMessage());
                 return "redirect:/contracts/add";
@@ -82,6 +111,10 @@ public class ContractController {
         }
 
         contractService.saveContract(contract);
+        if (file != null && !file.isEmpty()) {
+            documentTextService.requestExtraction(contract.getFileName(), contract.getFileHash());
+            renditionService.requestRenditions(contract.getFileName(), contract.getFileHash());
+        }
         redirectAttributes.addFlashAttribute("success", "Contract added successfully");
         return "redirect:/dashboard";
     }
@@ -95,7 +128,7 @@ public class ContractController {
         User user = (User) session.getAttribute("loggedInUser");
         if (user == null) return "redirect:/login";
 
-        Optional<Contract> optionalContract = contractService.findById(id);
+        Optional<Contract> optionalContract = contractService.findByIdWithOwner(id);
         if (optionalContract.isEmpty()) {
             redirectAttributes.addFlashAttribute("error", "Contract not found");
             return "redirect:/dashboard";
@@ -109,6 +142,7 @@ public class ContractController {
 
         model.addAttribute("contract", contract);
         model.addAttribute("currentUser", user);
+        model.addAttribute("attachments", attachmentService.getAttachments(contract));
 
         // Extract text from attachment if present
         String fileName = contract.getFileName();
@@ -117,14 +151,9 @@ public class ContractController {
             model.addAttribute("isPdf", textExtractionService.isPdf(fileName));
 
             if (textExtractionService.isPdf(fileName)) {
-                try {
-                    Path filePath = fileStorageService.loadFile(fileName);
-                    String text = textExtractionService.extractText(filePath);
-                    model.addAttribute("extractedText", text);
-                } catch (Exception e) {
-                    model.addAttribute("extractedText", "[Could not extract text: " + e.getMessage() + "]");
-                }
+                addExtractedText(contract, model);
             }
+            addPreview(contract, model);
         }
 
         return "view-contract";
@@ -194,14 +223,13 @@ public class ContractController {
         contract.setContractType(updatedContract.getContractType());
 
         // Handle file upload (replace old file if new one uploaded)
+        String previousFileName = contract.getFileName();
         if (file != null && !file.isEmpty()) {
             try {
-                // Delete old file if exists
-                if (contract.getFileName() != null) {
-                    fileStorageService.deleteFile(contract.getFileName());
-                }
-                String fileName = fileStorageService.storeFile(file);
-                contract.setFileName(fileName);
+                StoredFile stored = fileStorageService.storeFile(file);
+                contract.setFileName(stored.getFileName());
+                contract.setOriginalFileName(stored.getOriginalName());
+                contract.setFileHash(stored.getContentHash());
             } catch (IllegalArgumentException e) {
                 redirectAttributes.addFlashAttribute("error", e.getMessage());
                 return "redirect:/contracts/edit/" + id;
@@ -212,6 +240,14 @@ public class ContractController {
         }
 
         contractService.saveContract(contract);
+        if (file != null && !file.isEmpty()) {
+            // Release the replaced attachment; it stays if other contracts share it
+            if (previousFileName != null && !previousFileName.equals(contract.getFileName())) {
+                fileStorageService.releaseFile(previousFileName);
+            }
+            documentTextService.requestExtraction(contract.getFileName(), contract.getFileHash());
+            renditionService.requestRenditions(contract.getFileName(), contract.getFileHash());
+        }
         redirectAttributes.addFlashAttribute("success", "Contract updated successfully");
         return "redirect:/dashboard";
     }
@@ -236,66 +272,250 @@ public class ContractController {
             return "redirect:/dashboard";
         }
 
-        // Delete associated file
-        if (contract.getFileName() != null) {
-            fileStorageService.deleteFile(contract.getFileName());
-        }
-
-        contractService.deleteContract(id);
+        contractService.deleteContract(contract);
         redirectAttributes.addFlashAttribute("success", "Contract deleted successfully");
         return "redirect:/dashboard";
     }
 
+    // ── Attachments (add / remove) ───────────────────────────
+    @PostMapping("/{id}/attachments")
+    public String addAttachments(@PathVariable Long id,
+                                 @RequestParam("files") List<MultipartFile> files,
+                                 HttpSession session,
+                                 RedirectAttributes redirectAttributes) {
+        User user = (User) session.getAttribute("loggedInUser");
+        if (user == null) return "redirect:/login";
+
+        Optional<Contract> contract = accessibleContract(id, user);
+        if (contract.isEmpty()) {
+            redirectAttributes.addFlashAttribute("error", "Contract not found");
+            return "redirect:/dashboard";
+        }
+
+        try {
+            List<Attachment> added = attachmentService.addAttachments(contract.get(), files);
+            redirectAttributes.addFlashAttribute("success",
+                    added.size() + " attachment" + (added.size() != 1 ? "s" : "") + " added");
+        } catch (IllegalArgumentException e) {
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+        } catch (IOException e) {
+            redirectAttributes.addFlashAttribute("error", "Failed to upload file. Please try again.");
+        }
+        return "redirect:/contracts/view/" + id;
+    }
+
+    @PostMapping("/{id}/attachments/{attachmentId}/delete")
+    public String deleteAttachment(@PathVariable Long id,
+                                   @PathVariable Long attachmentId,
+                                   HttpSession session,
+                                   RedirectAttributes redirectAttributes) {
+        User user = (User) session.getAttribute("loggedInUser");
+        if (user == null) return "redirect:/login";
+
+        Optional<Attachment> attachment = accessibleContract(id, user)
+                .flatMap(c -> attachmentService.findAttachment(c, attachmentId));
+        if (attachment.isEmpty()) {
+            redirectAttributes.addFlashAttribute("error", "Attachment not found");
+            return "redirect:/contracts/view/" + id;
+        }
+
+        attachmentService.removeAttachment(attachment.get());
+        redirectAttributes.addFlashAttribute("success", "Attachment removed");
+        return "redirect:/contracts/view/" + id;
+    }
+
+    // ── Download All (streamed ZIP) ──────────────────────────
+    @GetMapping("/{id}/download-all")
+    public void downloadAll(@PathVariable Long id,
+                            HttpSession session,
+                            HttpServletResponse response) throws IOException {
+        User user = (User) session.getAttribute("loggedInUser");
+        if (user == null) {
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+            return;
+        }
+
+        Optional<Contract> contract = accessibleContract(id, user);
+        if (contract.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        Map<String, BlobContent> entries = attachmentService.openAllFiles(contract.get());
+        if (entries.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        fileDownloadService.sendZip(entries, downloadName(contract.get().getTitle(), "contract") + ".zip", response);
+    }
+
     // ── Download File ─────────────────────────────────────────
     @GetMapping("/download/{fileName}")
-    public ResponseEntity<Resource> downloadFile(@PathVariable String fileName,
+    public void downloadFile(@PathVariable String fileName,
+                             @RequestParam(required = false) String name,
+                             HttpSession session,
+                             HttpServletRequest request,
+                             HttpServletResponse response) throws IOException {
+        User user = (User) session.getAttribute("loggedInUser");
+        if (user == null) {
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+            return;
+        }
+
+        String storedName = Paths.get(fileName).getFileName().toString();
+        BlobContent content;
+        try {
+            content = fileStorageService.openBlob(storedName);
+        } catch (RuntimeException e) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        // Determine content type
+        String contentType = "application/octet-stream";
+        String lower = fileName.toLowerCase();
+        if (lower.endsWith(".pdf")) {
+            contentType = "application/pdf";
+        } else if (lower.endsWith(".jpg") || lower.endsWith(".jpeg")) {
+            contentType = "image/jpeg";
+        } else if (lower.endsWith(".png")) {
+            contentType = "image/png";
+        }
+
+        fileDownloadService.send(content, storedName, contentType, downloadName(name, storedName), request, response);
+    }
+
+    // ── Rendition (thumbnail / preview) ──────────────────────
+    @GetMapping("/rendition/{hash}/{variant}")
+    public void rendition(@PathVariable String hash,
+                          @PathVariable String variant,
+                          HttpSession session,
+                          HttpServletRequest request,
+                          HttpServletResponse response) throws IOException {
+        User user = (User) session.getAttribute("loggedInUser");
+        if (user == null) {
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+            return;
+        }
+
+        RenditionService.Size size = RenditionService.Size.fromVariant(variant);
+        Path path = size != null && hash.matches("[0-9a-f]{64}") ? renditionService.findRendition(hash, size) : null;
+        if (path == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        fileDownloadService.sendDerived(path, hash + "-" + variant, "image/jpeg", request, response);
+    }
+
+    // ── Document Pages (JSON) ────────────────────────────────
+    @GetMapping("/{id}/pages")
+    @ResponseBody
+    public ResponseEntity<PageRange> pages(@PathVariable Long id,
+                                           @RequestParam(defaultValue = "1") int from,
+                                           @RequestParam(defaultValue = "5") int count,
+                                           @RequestParam(value = "q", required = false) String query,
+                                           HttpSession session) {
+        User user = (User) session.getAttribute("loggedInUser");
+        if (user == null) {
+            return ResponseEntity.status(401).build();
+        }
+        return readyDocument(id, user)
+                .map(doc -> ResponseEntity.ok(documentTextService.getPages(doc, from, count, query)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/{id}/pages/search")
+    @ResponseBody
+    public ResponseEntity<Map<Integer, Integer>> searchPages(@PathVariable Long id,
+                                                             @RequestParam("q") String query,
+                                                             HttpSession session) {
+        User user = (User) session.getAttribute("loggedInUser");
+        if (user == null) {
+            return ResponseEntity.status(401).build();
+        }
+        return readyDocument(id, user)
+                .map(doc -> ResponseEntity.ok(documentTextService.countHitsByPage(doc, query)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // Extracted, paged text of a contract's PDF the user may read
+    private Optional<DocumentText> readyDocument(Long contractId, User user) {
+        return accessibleContract(contractId, user)
+                .flatMap(c -> documentTextService.findByHash(c.getFileHash()))
+                .filter(d -> d.getStatus() == DocumentText.Status.READY && d.getPageCount() != null);
+    }
+
+    // ── Full-text Search (ranked, JSON) ──────────────────────
+    @GetMapping("/search")
+    @ResponseBody
+    public ResponseEntity<List<SearchHit>> search(@RequestParam("q") String query,
+                                                  @RequestParam(defaultValue = "20") int limit,
                                                   HttpSession session) {
         User user = (User) session.getAttribute("loggedInUser");
         if (user == null) {
             return ResponseEntity.status(401).build();
         }
+        if (!contractSearchIndex.isReady()) {
+            return ResponseEntity.status(503).build();
+        }
+        return ResponseEntity.ok(contractSearchIndex.search(user, query, Math.min(Math.max(limit, 1), 100)));
+    }
 
-        try {
-            Path filePath = fileStorageService.loadFile(fileName);
-            Resource resource = new UrlResource(filePath.toUri());
+    // ── Helper: Thumbnail / first-page preview (rendered in the background) ──
+    private void addPreview(Contract contract, Model model) {
+        String hash = contract.getFileHash();
+        if (hash == null || !renditionService.supports(contract.getFileName())) return;
 
-            if (!resource.exists() || !resource.isReadable()) {
-                return ResponseEntity.notFound().build();
-            }
+        if (renditionService.findRendition(hash, RenditionService.Size.MEDIUM) != null) {
+            model.addAttribute("previewHash", hash);
+        } else {
+            renditionService.requestRenditions(contract.getFileName(), hash);
+        }
+    }
 
-            // Determine content type
-            String contentType = "application/octet-stream";
-            String name = fileName.toLowerCase();
-            if (name.endsWith(".pdf")) {
-                contentType = "application/pdf";
-            } else if (name.endsWith(".jpg") || name.endsWith(".jpeg")) {
-                contentType = "image/jpeg";
-            } else if (name.endsWith(".png")) {
-                contentType = "image/png";
-            }
+    // ── Helper: Stored PDF text (extracted once, in the background) ──
+    private void addExtractedText(Contract contract, Model model) {
+        String hash = contract.getFileHash();
+        if (hash == null) {
+            // Uploaded before hashes were recorded; the storage migration fills it in
+            model.addAttribute("extractedText", "[Text is not available yet: this attachment has not been indexed]");
+            return;
+        }
 
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(contentType))
-                    .header(HttpHeaders.CONTENT_DISPOSITION,
-                            "attachment; filename=\"" + resource.getFilename() + "\"")
-                    .body(resource);
+        Optional<DocumentText> stored = documentTextService.findByHash(hash);
+        if (documentTextService.needsExtraction(stored)) {
+            documentTextService.requestExtraction(contract.getFileName(), hash);
+        }
 
-        } catch (MalformedURLException e) {
-            return ResponseEntity.badRequest().build();
-        } catch (RuntimeException e) {
-            return ResponseEntity.notFound().build();
+        DocumentText doc = stored.orElse(null);
+        if (doc == null || doc.getStatus() == DocumentText.Status.PENDING || doc.getPageCount() == null) {
+            model.addAttribute("textProcessing", true);
+        } else if (doc.getStatus() == DocumentText.Status.FAILED) {
+            model.addAttribute("extractedText", "[Error extracting text from PDF: " + doc.getError() + "]");
+        } else if (doc.getText() == null || doc.getText().isBlank()) {
+            model.addAttribute("extractedText", "[No readable text found in this PDF]");
+        } else {
+            // Only the first pages go into the HTML; the viewer fetches the rest as it scrolls
+            PageRange firstPages = documentTextService.getPages(doc, 1, INITIAL_PAGES, null);
+            model.addAttribute("pageCount", firstPages.getPageCount());
+            model.addAttribute("pages", firstPages.getPages());
         }
     }
 
+    // ── Helper: Contract the user may see (admins see all) ───
+    private Optional<Contract> accessibleContract(Long contractId, User user) {
+        return contractService.findById(contractId)
+                .filter(c -> user.getRole() == User.Role.ADMIN || c.getUser().getId().equals(user.getId()));
+    }
+
+    // ── Helper: Name offered to the browser for a download ───
+    private String downloadName(String requested, String stored) {
+        if (requested == null || requested.isBlank()) return stored;
+        return requested.replaceAll("[^a-zA-Z0-9.\\-_]", "_");
+    }
+
     // ── Helper: Build dynamic contract type list ───────────────
     private Set<String> getContractTypes(User user) {
-        Set<String> types = new LinkedHashSet<>(Arrays.asList(Contract.DEFAULT_CONTRACT_TYPES));
-        List<Contract> allContracts = contractService.getContractsForUser(user);
-        for (Contract c : allContracts) {
-            if (c.getContractType() != null && !c.getContractType().isEmpty()) {
-                types.add(c.getContractType());
-            }
-        }
-        return types;
+        return contractService.getContractTypesForUser(user);
     }
 }
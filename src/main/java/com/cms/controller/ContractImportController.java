@@ -0,0 +1,122 @@
+package com.cms.controller;
+
+import com.cms.model.User;
+import com.cms.service.ContractImportService;
+import com.cms.service.ImportJob;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Optional;
+
+@Controller
+@RequestMapping("/contracts/import")
+public class ContractImportController {
+
+    @Autowired
+    private ContractImportService contractImportService;
+
+    // ── Import Page (upload form + job progress) ─────────────
+    @GetMapping
+    public String importPage(@RequestParam(required = false) String job,
+                             HttpSession session,
+                             Model model) {
+        User user = (User) session.getAttribute("loggedInUser");
+        if (user == null) return "redirect:/login";
+
+        if (job != null) {
+            contractImportService.findJob(user, job).ifPresent(j -> {
+                model.addAttribute("job", j);
+                model.addAttribute("hasErrorReport", contractImportService.getErrorReport(j) != null);
+            });
+        }
+        model.addAttribute("currentUser", user);
+        return "import-contracts";
+    }
+
+    // ── Start Import (POST, form fallback) ───────────────────
+    // Only used without scripts, so it is held to the multipart upload limits
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public String startImport(@RequestParam("file") MultipartFile file,
+                              HttpSession session,
+                              RedirectAttributes redirectAttributes) {
+        User user = (User) session.getAttribute("loggedInUser");
+        if (user == null) return "redirect:/login";
+
+        ImportJob job;
+        try {
+            job = contractImportService.createJob(user, file);
+        } catch (IllegalArgumentException e) {
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+            return "redirect:/contracts/import";
+        } catch (IOException e) {
+            redirectAttributes.addFlashAttribute("error", "Failed to upload file. Please try again.");
+            return "redirect:/contracts/import";
+        }
+
+        contractImportService.runInBackground(job);
+        return "redirect:/contracts/import?job=" + job.getId();
+    }
+
+    // ── Start Import (POST, streamed body) ───────────────────
+    // The page posts the file itself as the body; responds with the job id
+    @PostMapping(consumes = {"text/csv", MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<String> streamImport(@RequestParam("name") String fileName,
+                                               HttpServletRequest request,
+                                               HttpSession session) {
+        User user = (User) session.getAttribute("loggedInUser");
+        if (user == null) {
+            return ResponseEntity.status(401).build();
+        }
+
+        ImportJob job;
+        try {
+            job = contractImportService.createJob(user, fileName, request.getInputStream(),
+                    request.getContentLengthLong());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().contentType(MediaType.TEXT_PLAIN).body(e.getMessage());
+        } catch (IOException e) {
+            return ResponseEntity.internalServerError().contentType(MediaType.TEXT_PLAIN)
+                    .body("Failed to upload file. Please try again.");
+        }
+
+        contractImportService.runInBackground(job);
+        return ResponseEntity.ok().contentType(MediaType.TEXT_PLAIN).body(job.getId());
+    }
+
+    // ── Error Report (rejected rows as CSV) ──────────────────
+    @GetMapping("/{jobId}/errors")
+    public ResponseEntity<Resource> errorReport(@PathVariable String jobId, HttpSession session) {
+        User user = (User) session.getAttribute("loggedInUser");
+        if (user == null) {
+            return ResponseEntity.status(401).build();
+        }
+
+        Optional<ImportJob> job = contractImportService.findJob(user, jobId);
+        Path report = job.map(contractImportService::getErrorReport).orElse(null);
+        if (report == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        String name = job.get().getFileName().replaceAll("(?i)\\.csv$", "") + "-errors.csv";
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("text/csv; charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(name, StandardCharsets.UTF_8).build().toString())
+                .body(new FileSystemResource(report));
+    }
+}
@@ -2,18 +2,25 @@ package com.cms.controller;
 
 import com.cms.model.Contract;
 import com.cms.model.User;
+import com.cms.service.ContractExportService;
+import com.cms.service.ContractPage;
 import com.cms.service.ContractService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.IOException;
 import java.time.LocalDate;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Controller
 public class DashboardController {
@@ -21,6 +28,9 @@ public class DashboardController {
     @Autowired
     private ContractService contractService;
 
+    @Autowired
+    private ContractExportService contractExportService;
+
     @GetMapping("/dashboard")
     public String dashboard(
             @RequestParam(required = false) String keyword,
@@ -29,6 +39,8 @@ public class DashboardController {
             @RequestParam(required = false) String contractType,
             @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate fromDate,
             @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate toDate,
+            @RequestParam(required = false) Long cursor,
+            HttpServletRequest request,
             HttpSession session,
             Model model) {
 
@@ -54,16 +66,35 @@ public class DashboardController {
                 || fromDate != null
                 || toDate != null;
 
-        // Fetch contracts
-        List<Contract> contracts;
-        if (hasFilters) {
-            contracts = contractService.filterContracts(user, keyword, filterStatus, filterParty, filterType, fromDate,
-                    toDate);
-        } else {
-            contracts = contractService.getContractsForUser(user);
+        // Fetch one keyset page (filters are no-ops when unset)
+        ContractPage page = contractService.findContractsPage(user, keyword, filterStatus, filterParty, filterType,
+                fromDate, toDate, cursor);
+
+        model.addAttribute("contracts", page.getContracts());
+        model.addAttribute("snippets", page.getSnippets());
+        model.addAttribute("ownerNames", page.getOwnerNames());
+        model.addAttribute("isFirstPage", cursor == null);
+        if (page.hasNext()) {
+            // Keep every active filter on the "next" link, only swap the cursor
+            model.addAttribute("nextPageUrl", UriComponentsBuilder.fromPath("/dashboard")
+                    .query(request.getQueryString())
+                    .replaceQueryParam("cursor", page.getNextCursor())
+                    .build()
+                    .toUriString());
+        }
+        model.addAttribute("firstPageUrl", UriComponentsBuilder.fromPath("/dashboard")
+                .query(request.getQueryString())
+                .replaceQueryParam("cursor")
+                .build()
+                .toUriString());
+        for (ContractExportService.Format format : ContractExportService.Format.values()) {
+            model.addAttribute(format.getExtension() + "ExportUrl", UriComponentsBuilder.fromPath("/dashboard/export")
+                    .query(request.getQueryString())
+                    .replaceQueryParam("cursor")
+                    .replaceQueryParam("format", format.getExtension())
+                    .build()
+                    .toUriString());
         }
-
-        model.addAttribute("contracts", contracts);
         model.addAttribute("currentUser", user);
 
         // Preserve filter values
@@ -76,14 +107,7 @@ public class DashboardController {
         model.addAttribute("hasFilters", hasFilters);
 
         // Build contract type list: defaults + any custom types from existing contracts
-        List<Contract> allContracts = contractService.getContractsForUser(user);
-        Set<String> typeSet = new LinkedHashSet<>(Arrays.asList(Contract.DEFAULT_CONTRACT_TYPES));
-        for (Contract c : allContracts) {
-            if (c.getContractType() != null && !c.getContractType().isEmpty()) {
-                typeSet.add(c.getContractType());
-            }
-        }
-        model.addAttribute("contractTypes", typeSet);
+        model.addAttribute("contractTypes", contractService.getContractTypesForUser(user));
 
         // Enum values for dropdowns
         model.addAttribute("statuses", Contract.Status.values());
@@ -92,6 +116,41 @@ public class DashboardController {
         return "dashboard";
     }
 
+    // ── Export (same filters as the dashboard, streamed) ─────
+    @GetMapping("/dashboard/export")
+    public void export(
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String party,
+            @RequestParam(required = false) String contractType,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate fromDate,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate toDate,
+            @RequestParam(defaultValue = "csv") String format,
+            HttpSession session,
+            HttpServletResponse response) throws IOException {
+
+        User user = (User) session.getAttribute("loggedInUser");
+        if (user == null) {
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+            return;
+        }
+
+        ContractExportService.Format exportFormat = parseEnum(ContractExportService.Format.class, format);
+        if (exportFormat == null) exportFormat = ContractExportService.Format.CSV;
+        String filterType = (contractType != null && !contractType.isEmpty()) ? contractType : null;
+
+        response.setContentType(exportFormat.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("contracts-" + LocalDate.now() + "." + exportFormat.getExtension())
+                .build()
+                .toString());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-store");
+
+        contractExportService.export(user, keyword, parseEnum(Contract.Status.class, status),
+                parseEnum(Contract.Party.class, party), filterType, fromDate, toDate, exportFormat,
+                response.getOutputStream());
+    }
+
     private <T extends Enum<T>> T parseEnum(Class<T> enumClass, String value) {
         if (value == null || value.isEmpty())
             return null;
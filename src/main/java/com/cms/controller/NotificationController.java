@@ -1,14 +1,23 @@
 package com.cms.controller;
 
 import com.cms.model.User;
+import com.cms.service.NotificationPage;
 import com.cms.service.NotificationService;
+import com.cms.service.NotificationStreamService;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 @Controller
@@ -17,15 +26,19 @@ public class NotificationController {
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private NotificationStreamService notificationStreamService;
+
     @GetMapping("/notifications")
-    public String notifications(HttpSession session, Model model) {
+    public String notifications(@RequestParam(required = false) String cursor,
+                                HttpSession session, Model model) {
         User user = (User) session.getAttribute("loggedInUser");
         if (user == null) return "redirect:/login";
 
-        // Generate expiry alerts on page load
-        notificationService.checkAndGenerateExpiryAlerts(user);
-
-        model.addAttribute("notifications", notificationService.getNotificationsForUser(user));
+        NotificationPage page = notificationService.getInboxPage(user, cursor);
+        model.addAttribute("notifications", page.getNotifications());
+        model.addAttribute("nextCursor", page.getNextCursor());
+        model.addAttribute("isFirstPage", cursor == null || cursor.isBlank());
         model.addAttribute("unreadCount", notificationService.getUnreadCount(user));
         model.addAttribute("currentUser", user);
         return "notifications";
@@ -58,4 +71,15 @@ public class NotificationController {
         notificationService.deleteNotification(id, user);
         return "redirect:/notifications";
     }
+
+    // ── Live stream (SSE) ─────────────────────────────────────
+    @GetMapping(path = "/notifications/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public SseEmitter stream(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+                             HttpSession session) {
+        User user = (User) session.getAttribute("loggedInUser");
+        if (user == null) throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
+
+        return notificationStreamService.subscribe(user, lastEventId);
+    }
 }
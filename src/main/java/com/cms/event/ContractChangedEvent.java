@@ -0,0 +1,40 @@
+package com.cms.event;
+
+import com.cms.model.Contract;
+
+/**
+ * Published whenever a single contract row is inserted, updated or deleted.
+ * oldStatus is null for CREATED, newStatus is null for DELETED.
+ */
+public class ContractChangedEvent {
+
+    public enum Kind {
+        CREATED, UPDATED, DELETED
+    }
+
+    private final Kind kind;
+    private final Contract contract;
+    private final Long userId;
+    private final Contract.Status oldStatus;
+    private final Contract.Status newStatus;
+
+    public ContractChangedEvent(Kind kind, Contract contract, Contract.Status oldStatus, Contract.Status newStatus) {
+        this.kind = kind;
+        this.contract = contract;
+        this.userId = contract.getUser() != null ? contract.getUser().getId() : null;
+        this.oldStatus = oldStatus;
+        this.newStatus = newStatus;
+    }
+
+    public Kind getKind() { return kind; }
+
+    public Contract getContract() { return contract; }
+
+    public Long getContractId() { return contract.getId(); }
+
+    public Long getUserId() { return userId; }
+
+    public Contract.Status getOldStatus() { return oldStatus; }
+
+    public Contract.Status getNewStatus() { return newStatus; }
+}
@@ -0,0 +1,39 @@
+package com.cms.event;
+
+import com.cms.model.Contract;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * JPA callbacks for Contract that turn every row change into a
+ * ContractChangedEvent, whichever service or repository caused it.
+ * Instantiated by Hibernate through Spring's bean container.
+ */
+public class ContractEntityListener {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    public void afterInsert(Contract contract) {
+        eventPublisher.publishEvent(new ContractChangedEvent(
+                ContractChangedEvent.Kind.CREATED, contract, null, contract.getStatus()));
+        contract.markStatusPersisted();
+    }
+
+    @PostUpdate
+    public void afterUpdate(Contract contract) {
+        eventPublisher.publishEvent(new ContractChangedEvent(
+                ContractChangedEvent.Kind.UPDATED, contract, contract.getPersistedStatus(), contract.getStatus()));
+        contract.markStatusPersisted();
+    }
+
+    @PostRemove
+    public void afterDelete(Contract contract) {
+        eventPublisher.publishEvent(new ContractChangedEvent(
+                ContractChangedEvent.Kind.DELETED, contract, contract.getPersistedStatus(), null));
+    }
+}
@@ -0,0 +1,20 @@
+package com.cms.event;
+
+import java.util.List;
+
+/**
+ * Published after a bulk UPDATE changed the stored file name or content
+ * hash of some contracts (storage migration, hash back-fill). Bulk
+ * UPDATEs bypass entity callbacks, so no ContractChangedEvent is fired
+ * for these rows.
+ */
+public class ContractFilesChangedEvent {
+
+    private final List<Long> contractIds;
+
+    public ContractFilesChangedEvent(List<Long> contractIds) {
+        this.contractIds = contractIds;
+    }
+
+    public List<Long> getContractIds() { return contractIds; }
+}
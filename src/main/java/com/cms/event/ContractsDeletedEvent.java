@@ -0,0 +1,28 @@
+package com.cms.event;
+
+import java.util.List;
+
+/**
+ * Published when contracts are deleted: a user's contracts in one bulk
+ * DELETE, which bypasses the per-entity ContractChangedEvent, or a single
+ * contract, so its attachments are released too.
+ */
+public class ContractsDeletedEvent {
+
+    private final Long userId;
+    private final List<Long> contractIds;
+    private final List<String> fileNames;
+
+    public ContractsDeletedEvent(Long userId, List<Long> contractIds, List<String> fileNames) {
+        this.userId = userId;
+        this.contractIds = contractIds;
+        this.fileNames = fileNames;
+    }
+
+    public Long getUserId() { return userId; }
+
+    public List<Long> getContractIds() { return contractIds; }
+
+    // Attachments the deleted contracts referred to
+    public List<String> getFileNames() { return fileNames; }
+}
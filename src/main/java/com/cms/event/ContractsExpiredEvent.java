@@ -0,0 +1,28 @@
+package com.cms.event;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Published for each chunk of the bulk expiry sweep. The sweep uses a
+ * set-based UPDATE, so no per-entity ContractChangedEvent is fired for
+ * these rows; listeners must react to this event instead.
+ */
+public class ContractsExpiredEvent {
+
+    private final List<Long> contractIds;
+    private final Set<Long> userIds;
+    private final int updatedCount;
+
+    public ContractsExpiredEvent(List<Long> contractIds, Set<Long> userIds, int updatedCount) {
+        this.contractIds = contractIds;
+        this.userIds = userIds;
+        this.updatedCount = updatedCount;
+    }
+
+    public List<Long> getContractIds() { return contractIds; }
+
+    public Set<Long> getUserIds() { return userIds; }
+
+    public int getUpdatedCount() { return updatedCount; }
+}
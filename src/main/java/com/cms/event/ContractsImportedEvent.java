@@ -0,0 +1,23 @@
+package com.cms.event;
+
+import java.util.List;
+
+/**
+ * Published after each committed batch of a bulk CSV import. The import
+ * inserts through JDBC batches, so no per-entity ContractChangedEvent is
+ * fired for these rows; listeners must react to this event instead.
+ */
+public class ContractsImportedEvent {
+
+    private final Long userId;
+    private final List<Long> contractIds;
+
+    public ContractsImportedEvent(Long userId, List<Long> contractIds) {
+        this.userId = userId;
+        this.contractIds = contractIds;
+    }
+
+    public Long getUserId() { return userId; }
+
+    public List<Long> getContractIds() { return contractIds; }
+}
@@ -0,0 +1,16 @@
+package com.cms.event;
+
+/**
+ * Published once the text for a file content hash has been extracted
+ * and stored (successfully or not).
+ */
+public class DocumentTextExtractedEvent {
+
+    private final String contentHash;
+
+    public DocumentTextExtractedEvent(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public String getContentHash() { return contentHash; }
+}
@@ -0,0 +1,78 @@
+package com.cms.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Cold copy of a read notification moved out of the hot notifications
+ * table by the retention job. Keeps the original id.
+ */
+@Entity
+@Table(name = "notifications_archive", indexes = {
+        @Index(name = "idx_notifications_archive_user", columnList = "user_id, created_at")
+})
+public class ArchivedNotification {
+
+    @Id
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private String title;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String message;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Notification.Type type;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "contract_id")
+    private Long contractId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "alert_kind")
+    private Notification.AlertKind alertKind;
+
+    @Column(name = "alert_threshold")
+    private Integer alertThreshold;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+
+    public Notification.Type getType() { return type; }
+    public void setType(Notification.Type type) { this.type = type; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public Long getContractId() { return contractId; }
+    public void setContractId(Long contractId) { this.contractId = contractId; }
+
+    public Notification.AlertKind getAlertKind() { return alertKind; }
+    public void setAlertKind(Notification.AlertKind alertKind) { this.alertKind = alertKind; }
+
+    public Integer getAlertThreshold() { return alertThreshold; }
+    public void setAlertThreshold(Integer alertThreshold) { this.alertThreshold = alertThreshold; }
+
+    public LocalDateTime getArchivedAt() { return archivedAt; }
+    public void setArchivedAt(LocalDateTime archivedAt) { this.archivedAt = archivedAt; }
+}
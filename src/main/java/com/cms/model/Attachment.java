@@ -0,0 +1,80 @@
+package com.cms.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A further file attached to a contract (amendment, annex, scan), besides
+ * the main document held on the contract itself. Files are stored as
+ * shared content-addressed blobs, like the main document.
+ */
+@Entity
+@Table(name = "contract_attachments", indexes = {
+        @Index(name = "idx_contract_attachments_contract", columnList = "contract_id, id"),
+        @Index(name = "idx_contract_attachments_file_name", columnList = "file_name")
+})
+public class Attachment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "attachment_ids")
+    @TableGenerator(name = "attachment_ids", table = "id_sequences", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "contract_attachments", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "contract_id", nullable = false)
+    private Contract contract;
+
+    // Stored blob name
+    @Column(name = "file_name", nullable = false)
+    private String fileName;
+
+    @Column(name = "original_file_name")
+    private String originalFileName;
+
+    @Column(name = "file_hash", length = 64)
+    private String fileHash;
+
+    @Column(name = "file_size")
+    private long fileSize;
+
+    @Column(name = "uploaded_at", nullable = false)
+    private LocalDateTime uploadedAt;
+
+    // Constructors
+    public Attachment() {}
+
+    public Attachment(Contract contract, String fileName, String originalFileName, String fileHash, long fileSize) {
+        this.contract = contract;
+        this.fileName = fileName;
+        this.originalFileName = originalFileName;
+        this.fileHash = fileHash;
+        this.fileSize = fileSize;
+        this.uploadedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Contract getContract() { return contract; }
+    public void setContract(Contract contract) { this.contract = contract; }
+
+    public String getFileName() { return fileName; }
+    public void setFileName(String fileName) { this.fileName = fileName; }
+
+    public String getOriginalFileName() { return originalFileName; }
+    public void setOriginalFileName(String originalFileName) { this.originalFileName = originalFileName; }
+
+    public String getDisplayFileName() { return originalFileName != null ? originalFileName : fileName; }
+
+    public String getFileHash() { return fileHash; }
+    public void setFileHash(String fileHash) { this.fileHash = fileHash; }
+
+    public long getFileSize() { return fileSize; }
+    public void setFileSize(long fileSize) { this.fileSize = fileSize; }
+
+    public LocalDateTime getUploadedAt() { return uploadedAt; }
+    public void setUploadedAt(LocalDateTime uploadedAt) { this.uploadedAt = uploadedAt; }
+}
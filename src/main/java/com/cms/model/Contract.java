@@ -1,18 +1,32 @@
 package com.cms.model;
 
+import com.cms.event.ContractEntityListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import org.springframework.format.annotation.DateTimeFormat;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 
 @Entity
-@Table(name = "contracts")
+@Table(name = "contracts", indexes = {
+        @Index(name = "idx_contracts_user_id", columnList = "user_id, id"),
+        @Index(name = "idx_contracts_file_hash", columnList = "file_hash"),
+        @Index(name = "idx_contracts_file_name", columnList = "file_name"),
+        @Index(name = "idx_contracts_end_date", columnList = "end_date, status")
+})
+// Loads the owner with the contract, for pages that show who owns it
+@NamedEntityGraph(name = "Contract.withOwner", attributeNodes = @NamedAttributeNode("user"))
+@EntityListeners(ContractEntityListener.class)
 public class Contract {
 
+    // Pooled ids from a table (MySQL has no sequences) keep inserts batchable; seeded in data.sql
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "contract_ids")
+    @TableGenerator(name = "contract_ids", table = "id_sequences", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "contracts", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "Title is required")
@@ -43,13 +57,36 @@ public class Contract {
     @Column(name = "contract_type")
     private String contractType;
 
+    // Stored blob name; blobs are shared by every contract with the same content
     @Column(name = "file_name")
     private String fileName;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    // Name the attachment was uploaded with, for display and downloads
+    @Column(name = "original_file_name")
+    private String originalFileName;
+
+    // SHA-256 of the attachment content; keys the stored extracted text
+    @Column(name = "file_hash", length = 64)
+    private String fileHash;
+
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
+    // Further files (amendments, annexes) beyond the main document above
+    @OneToMany(mappedBy = "contract", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("id ASC")
+    private List<Attachment> attachments = new ArrayList<>();
+
+    // Status as last read from / written to the database (for change events)
+    @Transient
+    private Status persistedStatus;
+
+    @PostLoad
+    protected void onLoad() {
+        this.persistedStatus = this.status;
+    }
+
     // Enum
     public enum Status {
         DRAFT("Draft"),
@@ -125,6 +162,20 @@ public class Contract {
     public String getFileName() { return fileName; }
     public void setFileName(String fileName) { this.fileName = fileName; }
 
+    public String getOriginalFileName() { return originalFileName; }
+    public void setOriginalFileName(String originalFileName) { this.originalFileName = originalFileName; }
+
+    public String getDisplayFileName() { return originalFileName != null ? originalFileName : fileName; }
+
+    public String getFileHash() { return fileHash; }
+    public void setFileHash(String fileHash) { this.fileHash = fileHash; }
+
     public User getUser() { return user; }
     public void setUser(User user) { this.user = user; }
+
+    public List<Attachment> getAttachments() { return attachments; }
+    public void setAttachments(List<Attachment> attachments) { this.attachments = attachments; }
+
+    public Status getPersistedStatus() { return persistedStatus != null ? persistedStatus : status; }
+    public void markStatusPersisted() { this.persistedStatus = this.status; }
 }
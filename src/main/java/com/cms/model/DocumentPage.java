@@ -0,0 +1,52 @@
+package com.cms.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Extracted text of one PDF page, so the viewer can load a long document
+ * a few pages at a time. Keyed like DocumentText by content hash.
+ */
+@Entity
+@Table(name = "document_pages", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_document_pages_page", columnNames = {"content_hash", "page_number"})
+})
+public class DocumentPage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "document_page_ids")
+    @TableGenerator(name = "document_page_ids", table = "id_sequences", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "document_pages", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "content_hash", nullable = false, length = 64)
+    private String contentHash;
+
+    // 1-based
+    @Column(name = "page_number", nullable = false)
+    private int pageNumber;
+
+    @Column(columnDefinition = "MEDIUMTEXT")
+    private String text;
+
+    // Constructors
+    public DocumentPage() {}
+
+    public DocumentPage(String contentHash, int pageNumber, String text) {
+        this.contentHash = contentHash;
+        this.pageNumber = pageNumber;
+        this.text = text;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+
+    public int getPageNumber() { return pageNumber; }
+    public void setPageNumber(int pageNumber) { this.pageNumber = pageNumber; }
+
+    public String getText() { return text; }
+    public void setText(String text) { this.text = text; }
+}
@@ -0,0 +1,77 @@
+package com.cms.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Text extracted from an uploaded PDF, stored once per distinct file
+ * content (SHA-256) so identical uploads share a single extraction.
+ */
+@Entity
+@Table(name = "document_texts")
+public class DocumentText {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "content_hash", nullable = false, unique = true, length = 64)
+    private String contentHash;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status = Status.PENDING;
+
+    @Column(columnDefinition = "LONGTEXT")
+    private String text;
+
+    @Column(name = "error")
+    private String error;
+
+    // Pages stored in document_pages; null for text extracted before pages were kept
+    @Column(name = "page_count")
+    private Integer pageCount;
+
+    @Column(name = "requested_at", nullable = false)
+    private LocalDateTime requestedAt;
+
+    @Column(name = "extracted_at")
+    private LocalDateTime extractedAt;
+
+    public enum Status {
+        PENDING, READY, FAILED
+    }
+
+    // Constructors
+    public DocumentText() {}
+
+    public DocumentText(String contentHash) {
+        this.contentHash = contentHash;
+        this.requestedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+
+    public String getText() { return text; }
+    public void setText(String text) { this.text = text; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+
+    public Integer getPageCount() { return pageCount; }
+    public void setPageCount(Integer pageCount) { this.pageCount = pageCount; }
+
+    public LocalDateTime getRequestedAt() { return requestedAt; }
+    public void setRequestedAt(LocalDateTime requestedAt) { this.requestedAt = requestedAt; }
+
+    public LocalDateTime getExtractedAt() { return extractedAt; }
+    public void setExtractedAt(LocalDateTime extractedAt) { this.extractedAt = extractedAt; }
+}
@@ -4,11 +4,21 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications", indexes = {
+        @Index(name = "idx_notifications_inbox", columnList = "user_id, created_at, id"),
+        @Index(name = "idx_notifications_unread", columnList = "user_id, is_read, created_at"),
+        @Index(name = "idx_notifications_archivable", columnList = "is_read, alert_kind, created_at, id")
+}, uniqueConstraints = {
+        // Dedupe key for generated alerts; NULLs keep ordinary notifications out of it
+        @UniqueConstraint(name = "uk_notifications_alert",
+                columnNames = {"user_id", "contract_id", "alert_kind", "alert_threshold"})
+})
 public class Notification {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "notification_ids")
+    @TableGenerator(name = "notification_ids", table = "id_sequences", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "notifications", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -24,13 +34,24 @@ public class Notification {
     @Column(name = "is_read", nullable = false)
     private boolean read = false;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
 
+    // Set only for generated contract alerts
+    @Column(name = "contract_id")
+    private Long contractId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "alert_kind")
+    private AlertKind alertKind;
+
+    @Column(name = "alert_threshold")
+    private Integer alertThreshold;
+
     @PrePersist
     protected void onCreate() {
         this.createdAt = LocalDateTime.now();
@@ -47,6 +68,10 @@ public class Notification {
         public String getDisplayName() { return displayName; }
     }
 
+    public enum AlertKind {
+        EXPIRING_SOON, EXPIRED
+    }
+
     // Constructors
     public Notification() {}
 
@@ -78,4 +103,13 @@ public class Notification {
 
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public Long getContractId() { return contractId; }
+    public void setContractId(Long contractId) { this.contractId = contractId; }
+
+    public AlertKind getAlertKind() { return alertKind; }
+    public void setAlertKind(AlertKind alertKind) { this.alertKind = alertKind; }
+
+    public Integer getAlertThreshold() { return alertThreshold; }
+    public void setAlertThreshold(Integer alertThreshold) { this.alertThreshold = alertThreshold; }
 }
@@ -0,0 +1,29 @@
+package com.cms.repository;
+
+import com.cms.model.ArchivedNotification;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+@Repository
+public interface ArchivedNotificationRepository extends JpaRepository<ArchivedNotification, Long> {
+
+    @Transactional
+    @Modifying
+    @Query("INSERT INTO ArchivedNotification (id, userId, title, message, type, createdAt, contractId, " +
+           "alertKind, alertThreshold, archivedAt) " +
+           "SELECT n.id, n.user.id, n.title, n.message, n.type, n.createdAt, n.contractId, " +
+           "n.alertKind, n.alertThreshold, :archivedAt FROM Notification n WHERE n.id IN :ids")
+    int copyFromNotifications(@Param("ids") Collection<Long> ids, @Param("archivedAt") LocalDateTime archivedAt);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ArchivedNotification a WHERE a.userId = :userId")
+    int deleteAllByUserIdInBulk(@Param("userId") Long userId);
+}
@@ -0,0 +1,34 @@
+package com.cms.repository;
+
+import com.cms.model.Attachment;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface AttachmentRepository extends JpaRepository<Attachment, Long> {
+
+    List<Attachment> findByContractIdOrderByIdAsc(Long contractId);
+
+    // References to a stored blob
+    long countByFileName(String fileName);
+
+    // ── Orphan collection: (id, fileName) in keyset pages ──
+    @Query("SELECT a.id, a.fileName FROM Attachment a WHERE a.id > :afterId ORDER BY a.id")
+    List<Object[]> findFileNamesAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // ── Bulk delete of a user's contracts ──
+    @Query("SELECT a.fileName FROM Attachment a WHERE a.contract.user.id = :userId")
+    List<String> findFileNamesByUserId(@Param("userId") Long userId);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Attachment a WHERE a.contract.id IN (SELECT c.id FROM Contract c WHERE c.user.id = :userId)")
+    int deleteAllByUserIdInBulk(@Param("userId") Long userId);
+}
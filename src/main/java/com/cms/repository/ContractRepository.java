@@ -1,24 +1,116 @@
 package com.cms.repository;
 
 import com.cms.model.Contract;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ContractRepository extends JpaRepository<Contract, Long>, JpaSpecificationExecutor<Contract> {
 
     List<Contract> findByUserId(Long userId);
 
-    long countByStatus(Contract.Status status);
+    List<Contract> findByStatus(Contract.Status status);
 
-    long countByUserId(Long userId);
+    List<Contract> findByUserIdAndStatus(Long userId, Contract.Status status);
 
-    long countByUserIdAndStatus(Long userId, Contract.Status status);
+    List<Contract> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
 
-    List<Contract> findByStatus(Contract.Status status);
+    List<Contract> findByFileHash(String fileHash);
 
-    List<Contract> findByUserIdAndStatus(Long userId, Contract.Status status);
+    @EntityGraph("Contract.withOwner")
+    Optional<Contract> findWithOwnerById(Long id);
+
+    // References to a stored blob
+    long countByFileName(String fileName);
+
+    // ── Storage layout migration ──
+    @Query("SELECT c.id, c.fileName FROM Contract c WHERE c.id > :afterId AND c.fileName IS NOT NULL ORDER BY c.id")
+    List<Object[]> findFileNamesAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT c.id FROM Contract c WHERE c.fileName = :fileName")
+    List<Long> findIdsByFileName(@Param("fileName") String fileName);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Contract c SET c.fileName = :newName, c.fileHash = :fileHash, " +
+           "c.originalFileName = COALESCE(c.originalFileName, :originalName) WHERE c.fileName = :oldName")
+    int rewriteFileName(@Param("oldName") String oldName, @Param("newName") String newName,
+                        @Param("fileHash") String fileHash, @Param("originalName") String originalName);
+
+    // ── Hash back-fill for attachments stored before hashes were recorded ──
+    @Query("SELECT c.id, c.fileName FROM Contract c WHERE c.id > :afterId AND c.fileName IS NOT NULL " +
+           "AND c.fileName <> '' AND c.fileHash IS NULL ORDER BY c.id")
+    List<Object[]> findUnhashedFileNamesAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Contract c SET c.fileHash = :fileHash WHERE c.id = :id AND c.fileHash IS NULL")
+    int setFileHashIfMissing(@Param("id") Long id, @Param("fileHash") String fileHash);
+
+    // ── Expiry alerts: (id, title, endDate, status, userId) in an end-date window ──
+    @Query("SELECT c.id, c.title, c.endDate, c.status, c.user.id FROM Contract c " +
+           "WHERE c.endDate BETWEEN :from AND :to AND c.id > :afterId ORDER BY c.id")
+    List<Object[]> findAlertCandidates(@Param("from") LocalDate from,
+                                       @Param("to") LocalDate to,
+                                       @Param("afterId") Long afterId,
+                                       Pageable pageable);
+
+    // ── Bulk delete of a user's contracts ──
+    @Query("SELECT c.id, c.fileName FROM Contract c WHERE c.user.id = :userId")
+    List<Object[]> findIdAndFileNameByUserId(@Param("userId") Long userId);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Contract c WHERE c.user.id = :userId")
+    int deleteAllByUserIdInBulk(@Param("userId") Long userId);
+
+    // ── Bulk expiry (id, userId) chunks, then a set-based UPDATE per chunk ──
+    @Query("SELECT c.id, c.user.id FROM Contract c WHERE c.endDate < :today AND c.status <> :expired " +
+           "AND c.id > :afterId ORDER BY c.id")
+    List<Object[]> findExpiryCandidates(@Param("today") LocalDate today,
+                                        @Param("expired") Contract.Status expired,
+                                        @Param("afterId") Long afterId,
+                                        Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Contract c SET c.status = :expired WHERE c.id IN :ids AND c.status <> :expired")
+    int expireByIds(@Param("ids") Collection<Long> ids, @Param("expired") Contract.Status expired);
+
+    @Query("SELECT c.status, COUNT(c) FROM Contract c GROUP BY c.status")
+    List<Object[]> countGroupedByStatus();
+
+    @Query("SELECT c.status, COUNT(c) FROM Contract c WHERE c.user.id = :userId GROUP BY c.status")
+    List<Object[]> countGroupedByStatusForUser(@Param("userId") Long userId);
+
+    @Query("SELECT c.party, COUNT(c) FROM Contract c GROUP BY c.party")
+    List<Object[]> countGroupedByParty();
+
+    @Query("SELECT c.party, COUNT(c) FROM Contract c WHERE c.user.id = :userId GROUP BY c.party")
+    List<Object[]> countGroupedByPartyForUser(@Param("userId") Long userId);
+
+    @Query("SELECT c.contractType, COUNT(c) FROM Contract c GROUP BY c.contractType ORDER BY COUNT(c) DESC")
+    List<Object[]> countGroupedByType();
+
+    @Query("SELECT c.contractType, COUNT(c) FROM Contract c WHERE c.user.id = :userId GROUP BY c.contractType ORDER BY COUNT(c) DESC")
+    List<Object[]> countGroupedByTypeForUser(@Param("userId") Long userId);
+
+    @Query("SELECT DISTINCT c.contractType FROM Contract c WHERE c.contractType IS NOT NULL AND c.contractType <> ''")
+    List<String> findDistinctContractTypes();
+
+    @Query("SELECT DISTINCT c.contractType FROM Contract c WHERE c.user.id = :userId AND c.contractType IS NOT NULL AND c.contractType <> ''")
+    List<String> findDistinctContractTypesByUserId(@Param("userId") Long userId);
 }
@@ -7,6 +7,7 @@ import org.springframework.data.jpa.domain.Specification;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 public class ContractSpecification {
@@ -66,4 +67,20 @@ public class ContractSpecification {
             return cb.and(predicates.toArray(new Predicate[0]));
         };
     }
+
+    /**
+     * Keyset cursor: only rows with an id strictly below the cursor.
+     * Combined with the id DESC ordering of withFilters this seeks
+     * straight to the next page instead of scanning an OFFSET.
+     */
+    public static Specification<Contract> idBefore(Long cursor) {
+        return (root, query, cb) -> cursor == null ? null : cb.lessThan(root.get("id"), cursor);
+    }
+
+    /**
+     * Restricts to an explicit id set, e.g. the hits of a full-text search.
+     */
+    public static Specification<Contract> idIn(Collection<Long> ids) {
+        return (root, query, cb) -> ids.isEmpty() ? cb.disjunction() : root.get("id").in(ids);
+    }
 }
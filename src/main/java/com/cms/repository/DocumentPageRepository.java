@@ -0,0 +1,35 @@
+package com.cms.repository;
+
+import com.cms.model.DocumentPage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface DocumentPageRepository extends JpaRepository<DocumentPage, Long> {
+
+    List<DocumentPage> findByContentHashAndPageNumberBetweenOrderByPageNumberAsc(String contentHash,
+                                                                                 int fromPage, int toPage);
+
+    // Pages containing a term; the pattern is lower-case with LIKE wildcards already applied
+    @Query("SELECT p FROM DocumentPage p WHERE p.contentHash = :hash AND LOWER(p.text) LIKE :pattern " +
+           "ORDER BY p.pageNumber")
+    List<DocumentPage> findPagesMatching(@Param("hash") String contentHash, @Param("pattern") String pattern);
+
+    // (pageNumber, text) of pages containing a term, first page first; same pattern rules as above
+    @Query("SELECT p.pageNumber, p.text FROM DocumentPage p WHERE p.contentHash = :hash " +
+           "AND LOWER(p.text) LIKE :pattern ORDER BY p.pageNumber")
+    List<Object[]> findPageTextsMatching(@Param("hash") String contentHash, @Param("pattern") String pattern,
+                                         Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM DocumentPage p WHERE p.contentHash = :hash")
+    int deleteAllByContentHashInBulk(@Param("hash") String contentHash);
+}
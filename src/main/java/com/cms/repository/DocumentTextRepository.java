@@ -0,0 +1,22 @@
+package com.cms.repository;
+
+import com.cms.model.DocumentText;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface DocumentTextRepository extends JpaRepository<DocumentText, Long> {
+
+    Optional<DocumentText> findByContentHash(String contentHash);
+
+    // (contentHash, text) of the given hashes whose extraction has finished
+    @Query("SELECT d.contentHash, d.text FROM DocumentText d WHERE d.contentHash IN :hashes AND d.status = :status")
+    List<Object[]> findTextsByContentHashIn(@Param("hashes") Collection<String> hashes,
+                                            @Param("status") DocumentText.Status status);
+}
@@ -1,9 +1,17 @@
 package com.cms.repository;
 
 import com.cms.model.Notification;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -14,4 +22,53 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
     List<Notification> findByUserIdAndReadFalseOrderByCreatedAtDesc(Long userId);
 
     long countByUserIdAndReadFalse(Long userId);
+
+    List<Notification> findByUserIdAndIdGreaterThanOrderByIdAsc(Long userId, Long id, Limit limit);
+
+    @Query("SELECT n.user.id, COUNT(n) FROM Notification n WHERE n.read = false AND n.user.id IN :userIds GROUP BY n.user.id")
+    List<Object[]> countUnreadGroupedByUser(@Param("userIds") Collection<Long> userIds);
+
+    // ── Inbox paging: seek on (created_at, id) DESC ──
+    List<Notification> findByUserIdOrderByCreatedAtDescIdDesc(Long userId, Limit limit);
+
+    @Query("SELECT n FROM Notification n WHERE n.user.id = :userId " +
+           "AND (n.createdAt < :createdAt OR (n.createdAt = :createdAt AND n.id < :id)) " +
+           "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findPageBefore(@Param("userId") Long userId,
+                                      @Param("createdAt") LocalDateTime createdAt,
+                                      @Param("id") Long id,
+                                      Pageable pageable);
+
+    // ── Alert dedupe: (contractId, userId) of alerts already sent at one level ──
+    @Query("SELECT n.contractId, n.user.id FROM Notification n WHERE n.contractId IN :contractIds " +
+           "AND n.alertKind = :kind AND n.alertThreshold = :threshold")
+    List<Object[]> findAlertRecipients(@Param("contractIds") Collection<Long> contractIds,
+                                       @Param("kind") Notification.AlertKind kind,
+                                       @Param("threshold") int threshold);
+
+    // ── Retention: (id, createdAt) of old read non-alert notifications, seek on (created_at, id) ──
+    @Query("SELECT n.id, n.createdAt FROM Notification n WHERE n.read = true AND n.alertKind IS NULL " +
+           "AND n.createdAt < :cutoff " +
+           "AND (n.createdAt > :afterCreatedAt OR (n.createdAt = :afterCreatedAt AND n.id > :afterId)) " +
+           "ORDER BY n.createdAt, n.id")
+    List<Object[]> findArchivableAfter(@Param("cutoff") LocalDateTime cutoff,
+                                       @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                       @Param("afterId") Long afterId,
+                                       Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Notification n WHERE n.id IN :ids")
+    int deleteAllByIdInBulk(@Param("ids") Collection<Long> ids);
+
+    // ── Bulk operations (single statement, returns affected rows) ──
+    @Transactional
+    @Modifying
+    @Query("UPDATE Notification n SET n.read = true WHERE n.user.id = :userId AND n.read = false")
+    int markAllReadByUserId(@Param("userId") Long userId);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Notification n WHERE n.user.id = :userId")
+    int deleteAllByUserIdInBulk(@Param("userId") Long userId);
 }
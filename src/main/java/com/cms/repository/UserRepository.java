@@ -2,8 +2,11 @@ package com.cms.repository;
 
 import com.cms.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,4 +22,10 @@ public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByEmail(String email);
 
     List<User> findByStatus(User.Status status);
+
+    List<User> findByRoleAndStatus(User.Role role, User.Status status);
+
+    // ── Owner names (id, fullName) for contract lists ──
+    @Query("SELECT u.id, u.fullName FROM User u WHERE u.id IN :ids")
+    List<Object[]> findFullNamesByIdIn(@Param("ids") Collection<Long> ids);
 }
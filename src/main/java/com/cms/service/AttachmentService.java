@@ -0,0 +1,122 @@
+package com.cms.service;
+
+import com.cms.model.Attachment;
+import com.cms.model.Contract;
+import com.cms.repository.AttachmentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Further files attached to a contract besides its main document.
+ */
+@Service
+public class AttachmentService {
+
+    public static final int MAX_ATTACHMENTS = 100;
+
+    @Autowired
+    private AttachmentRepository attachmentRepository;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    public List<Attachment> getAttachments(Contract contract) {
+        return attachmentRepository.findByContractIdOrderByIdAsc(contract.getId());
+    }
+
+    public Optional<Attachment> findAttachment(Contract contract, Long attachmentId) {
+        return attachmentRepository.findById(attachmentId)
+                .filter(a -> a.getContract().getId().equals(contract.getId()));
+    }
+
+    /**
+     * Store the uploads and attach them to the contract. Nothing is attached
+     * if any upload is rejected; files already stored by then are left to
+     * the orphan collector.
+     */
+    public List<Attachment> addAttachments(Contract contract, List<MultipartFile> files) throws IOException {
+        List<MultipartFile> uploads = files.stream().filter(f -> f != null && !f.isEmpty()).toList();
+        if (uploads.isEmpty()) {
+            throw new IllegalArgumentException("Please select at least one file to attach.");
+        }
+        if (getAttachments(contract).size() + uploads.size() > MAX_ATTACHMENTS) {
+            throw new IllegalArgumentException("A contract can have at most " + MAX_ATTACHMENTS + " attachments.");
+        }
+
+        List<Attachment> attachments = new ArrayList<>(uploads.size());
+        for (MultipartFile file : uploads) {
+            StoredFile stored = fileStorageService.storeFile(file);
+            attachments.add(new Attachment(contract, stored.getFileName(), stored.getOriginalName(),
+                    stored.getContentHash(), stored.getSize()));
+        }
+        return attachmentRepository.saveAll(attachments);
+    }
+
+    public void removeAttachment(Attachment attachment) {
+        attachmentRepository.delete(attachment);
+        // The blob stays if another contract or attachment shares it
+        fileStorageService.releaseFile(attachment.getFileName());
+    }
+
+    // ── ZIP of every file of a contract ───────────────────────
+
+    /**
+     * Opens the main document and every attachment for a ZIP download,
+     * keyed by a unique entry name. Files missing from storage are skipped.
+     */
+    public Map<String, BlobContent> openAllFiles(Contract contract) {
+        Map<String, BlobContent> entries = new LinkedHashMap<>();
+        Set<String> used = new HashSet<>();
+        if (contract.getFileName() != null && !contract.getFileName().isEmpty()) {
+            addEntry(entries, used, contract.getDisplayFileName(), contract.getFileName());
+        }
+        for (Attachment attachment : getAttachments(contract)) {
+            addEntry(entries, used, attachment.getDisplayFileName(), attachment.getFileName());
+        }
+        return entries;
+    }
+
+    private void addEntry(Map<String, BlobContent> entries, Set<String> used, String displayName, String storedName) {
+        BlobContent content;
+        try {
+            content = fileStorageService.openBlob(storedName);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Skipping missing attachment " + storedName + " in ZIP: " + e.getMessage());
+            return;
+        }
+        entries.put(entryName(displayName, storedName, used), content);
+    }
+
+    // Display name with the stored file's extension, numbered when it repeats
+    private static String entryName(String displayName, String storedName, Set<String> used) {
+        String name = displayName.replaceAll("[^a-zA-Z0-9.\\-_ ]", "_");
+        int dot = storedName.lastIndexOf('.');
+        String extension = dot >= 0 ? storedName.substring(dot).toLowerCase(Locale.ROOT) : "";
+        String lower = name.toLowerCase(Locale.ROOT);
+        if (lower.endsWith(".jpeg") && extension.equals(".jpg")) {
+            extension = name.substring(name.length() - 5);
+        } else if (lower.endsWith(extension)) {
+            extension = name.substring(name.length() - extension.length());
+        } else {
+            name += extension;
+        }
+
+        String base = name.substring(0, name.length() - extension.length());
+        String candidate = name;
+        for (int i = 2; !used.add(candidate.toLowerCase(Locale.ROOT)); i++) {
+            candidate = base + " (" + i + ")" + extension;
+        }
+        return candidate;
+    }
+}
@@ -0,0 +1,92 @@
+package com.cms.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Readable content of one stored blob: either a plain file or a
+ * memory-mapped slice of a segment file. path is null for the latter.
+ */
+public class BlobContent {
+
+    private final Path path;
+    private final ByteBuffer buffer;
+    private final long size;
+    private final long lastModified;
+
+    private BlobContent(Path path, ByteBuffer buffer, long size, long lastModified) {
+        this.path = path;
+        this.buffer = buffer;
+        this.size = size;
+        this.lastModified = lastModified;
+    }
+
+    public static BlobContent ofFile(Path path) throws IOException {
+        return new BlobContent(path, null, Files.size(path), Files.getLastModifiedTime(path).toMillis());
+    }
+
+    public static BlobContent ofBuffer(ByteBuffer buffer, long lastModified) {
+        return new BlobContent(null, buffer, buffer.remaining(), lastModified);
+    }
+
+    public Path getPath() { return path; }
+
+    public long getSize() { return size; }
+
+    public long getLastModified() { return lastModified; }
+
+    public InputStream openStream() throws IOException {
+        if (path != null) return Files.newInputStream(path);
+        ByteBuffer view = buffer.duplicate();
+        return new InputStream() {
+            @Override
+            public int read() {
+                return view.hasRemaining() ? view.get() & 0xFF : -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (!view.hasRemaining()) return -1;
+                int n = Math.min(len, view.remaining());
+                view.get(b, off, n);
+                return n;
+            }
+
+            @Override
+            public int available() {
+                return view.remaining();
+            }
+        };
+    }
+
+    /**
+     * Writes count bytes starting at position. Files go through
+     * FileChannel.transferTo; mapped slices are written straight from the
+     * mapping, so neither is read into memory as a whole.
+     */
+    public void transferTo(long position, long count, WritableByteChannel out) throws IOException {
+        if (path != null) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long remaining = count;
+                while (remaining > 0) {
+                    long sent = channel.transferTo(position, remaining, out);
+                    if (sent <= 0) break;
+                    position += sent;
+                    remaining -= sent;
+                }
+            }
+            return;
+        }
+        ByteBuffer range = buffer.duplicate();
+        range.position((int) position).limit((int) (position + count));
+        while (range.hasRemaining()) {
+            out.write(range);
+        }
+    }
+}
@@ -1,36 +1,74 @@
 package com.cms.service;
 
+import com.cms.event.ContractsExpiredEvent;
 import com.cms.model.Contract;
 import com.cms.repository.ContractRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @Service
 public class ContractExpiryService {
 
+    private static final int CHUNK_SIZE = 500;
+
     @Autowired
     private ContractRepository contractRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * Runs every hour to auto-expire contracts whose end date has passed.
      * Also runs once on startup (initialDelay = 0).
      */
     @Scheduled(fixedRate = 3600000, initialDelay = 0)
     public void autoExpireContracts() {
-        LocalDate today = LocalDate.now();
-        List<Contract> allContracts = contractRepository.findAll();
-
-        for (Contract contract : allContracts) {
-            if (contract.getStatus() != Contract.Status.EXPIRED
-                    && contract.getEndDate() != null
-                    && contract.getEndDate().isBefore(today)) {
-                contract.setStatus(Contract.Status.EXPIRED);
-                contractRepository.save(contract);
+        int expired = expireContracts(LocalDate.now());
+        if (expired > 0) {
+            System.out.println("Auto-expired " + expired + " contract(s)");
+        }
+    }
+
+    /**
+     * Sets status EXPIRED on every contract that ended before the given day.
+     * Works in chunks of CHUNK_SIZE ids, each updated with one set-based
+     * UPDATE in its own short transaction, so locks are never held across
+     * the whole table. Returns the number of rows changed.
+     */
+    public int expireContracts(LocalDate today) {
+        int total = 0;
+        Long afterId = 0L;
+
+        while (true) {
+            List<Object[]> rows = contractRepository.findExpiryCandidates(
+                    today, Contract.Status.EXPIRED, afterId, PageRequest.of(0, CHUNK_SIZE));
+            if (rows.isEmpty()) break;
+
+            List<Long> ids = new ArrayList<>(rows.size());
+            Set<Long> userIds = new HashSet<>();
+            for (Object[] row : rows) {
+                ids.add((Long) row[0]);
+                userIds.add((Long) row[1]);
             }
+
+            int updated = contractRepository.expireByIds(ids, Contract.Status.EXPIRED);
+            total += updated;
+            if (updated > 0) {
+                eventPublisher.publishEvent(new ContractsExpiredEvent(ids, userIds, updated));
+            }
+
+            if (rows.size() < CHUNK_SIZE) break;
+            afterId = ids.get(ids.size() - 1);
         }
+        return total;
     }
 }
@@ -0,0 +1,268 @@
+package com.cms.service;
+
+import com.cms.model.Contract;
+import com.cms.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.query.Query;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Exports the dashboard's filtered contract list as CSV or XLSX.
+ *
+ * Only the exported columns are selected (no entities are loaded), and
+ * rows are read through a forward-only scroll that MySQL streams one row
+ * at a time, each written to the response as it arrives. Heap use does
+ * not depend on the number of contracts, and the first bytes go out as
+ * soon as the first rows are read. A keyword search exports every index
+ * match in relevance order, reading the ranked ids in chunks.
+ */
+@Service
+public class ContractExportService {
+
+    // Connector/J streams a result set row by row only with this fetch size
+    private static final int STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+    // Push what has been written so far to the client every this many rows
+    private static final int FLUSH_EVERY_ROWS = 500;
+    // Ranked search hits are read this many per query
+    private static final int RANKED_CHUNK_SIZE = 1000;
+
+    private static final String[] HEADERS = {
+            "ID", "Title", "Status", "Party", "Contract Type", "Start Date", "End Date", "Owner", "Attachment",
+            "Description"
+    };
+
+    public enum Format {
+        CSV("csv", "text/csv; charset=UTF-8"),
+        XLSX("xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+
+        private final String extension;
+        private final String contentType;
+
+        Format(String extension, String contentType) {
+            this.extension = extension;
+            this.contentType = contentType;
+        }
+
+        public String getExtension() { return extension; }
+
+        public String getContentType() { return contentType; }
+    }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private ContractService contractService;
+
+    /**
+     * Writes every contract matching the dashboard filters: newest first,
+     * or by relevance for a keyword search. The output stream is flushed
+     * but not closed.
+     */
+    @Transactional(readOnly = true)
+    public void export(User user,
+                       String keyword,
+                       Contract.Status status,
+                       Contract.Party party,
+                       String contractType,
+                       LocalDate fromDate,
+                       LocalDate toDate,
+                       Format format,
+                       OutputStream out) throws IOException {
+        List<Long> ranked = contractService.rankKeyword(user, keyword);
+        Specification<Contract> spec = contractService.filterSpec(user, ranked != null ? null : keyword, status,
+                party, contractType, fromDate, toDate);
+
+        if (ranked != null) {
+            write(new RankedRows(spec, ranked), format, out);
+            return;
+        }
+        try (ScrollableResults<Object[]> rows = scroll(spec)) {
+            write(new Iterator<>() {
+                private Boolean hasNext;
+
+                @Override
+                public boolean hasNext() {
+                    if (hasNext == null) hasNext = rows.next();
+                    return hasNext;
+                }
+
+                @Override
+                public Object[] next() {
+                    if (!hasNext()) throw new NoSuchElementException();
+                    hasNext = null;
+                    return rows.get();
+                }
+            }, format, out);
+        }
+    }
+
+    private void write(Iterator<Object[]> rows, Format format, OutputStream out) throws IOException {
+        if (format == Format.XLSX) {
+            writeXlsx(rows, out);
+        } else {
+            writeCsv(rows, out);
+        }
+    }
+
+    // Only the exported columns, with the specification's filters (and id DESC ordering)
+    private CriteriaQuery<Object[]> projection(Specification<Contract> spec, Collection<Long> ids) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+        Root<Contract> root = query.from(Contract.class);
+        Join<Contract, User> owner = root.join("user");
+        query.multiselect(root.get("id"), root.get("title"), root.get("status"), root.get("party"),
+                root.get("contractType"), root.get("startDate"), root.get("endDate"), owner.get("fullName"),
+                root.get("originalFileName"), root.get("fileName"), root.get("description"));
+
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (ids != null) {
+            Predicate inIds = root.get("id").in(ids);
+            predicate = predicate != null ? cb.and(predicate, inIds) : inIds;
+        }
+        if (predicate != null) query.where(predicate);
+        return query;
+    }
+
+    @SuppressWarnings("unchecked")
+    private ScrollableResults<Object[]> scroll(Specification<Contract> spec) {
+        Query<Object[]> hibernateQuery = entityManager.createQuery(projection(spec, null)).unwrap(Query.class);
+        return hibernateQuery
+                .setReadOnly(true)
+                .setFetchSize(STREAMING_FETCH_SIZE)
+                .scroll(ScrollMode.FORWARD_ONLY);
+    }
+
+    /**
+     * Rows of every ranked search hit that passes the filters, in rank
+     * order. Reads one chunk of ranked ids per query, so memory stays
+     * bounded by the chunk size however many contracts match.
+     */
+    private class RankedRows implements Iterator<Object[]> {
+        private final Specification<Contract> spec;
+        private final List<Long> ranked;
+        private int position;
+        private Iterator<Object[]> chunk = Collections.emptyIterator();
+
+        RankedRows(Specification<Contract> spec, List<Long> ranked) {
+            this.spec = spec;
+            this.ranked = ranked;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!chunk.hasNext() && position < ranked.size()) {
+                List<Long> ids = new ArrayList<>(ranked.subList(position,
+                        Math.min(position + RANKED_CHUNK_SIZE, ranked.size())));
+                position += ids.size();
+
+                Map<Long, Object[]> rowsById = new HashMap<>();
+                for (Object[] row : entityManager.createQuery(projection(spec, ids)).getResultList()) {
+                    rowsById.put((Long) row[0], row);
+                }
+                List<Object[]> inRankOrder = new ArrayList<>(rowsById.size());
+                for (Long id : ids) {
+                    Object[] row = rowsById.get(id);
+                    if (row != null) inRankOrder.add(row);
+                }
+                chunk = inRankOrder.iterator();
+            }
+            return chunk.hasNext();
+        }
+
+        @Override
+        public Object[] next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return chunk.next();
+        }
+    }
+
+    // ── CSV ───────────────────────────────────────────────────
+    private void writeCsv(Iterator<Object[]> rows, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        writer.write('\uFEFF'); // BOM, so Excel opens the file as UTF-8
+        CsvWriter csv = new CsvWriter(writer, true);
+
+        csv.writeRow(Arrays.asList(HEADERS));
+        long count = 0;
+        while (rows.hasNext()) {
+            Object[] row = rows.next();
+            csv.writeRow(Arrays.asList(
+                    String.valueOf(row[0]),
+                    (String) row[1],
+                    row[2] != null ? ((Contract.Status) row[2]).getDisplayName() : null,
+                    row[3] != null ? ((Contract.Party) row[3]).getDisplayName() : null,
+                    (String) row[4],
+                    row[5] != null ? row[5].toString() : null,
+                    row[6] != null ? row[6].toString() : null,
+                    (String) row[7],
+                    attachmentName(row),
+                    (String) row[10]
+            ));
+            if (++count % FLUSH_EVERY_ROWS == 0) csv.flush();
+        }
+        csv.flush();
+    }
+
+    // ── XLSX ──────────────────────────────────────────────────
+    private void writeXlsx(Iterator<Object[]> rows, OutputStream out) throws IOException {
+        XlsxStreamWriter sheet = new XlsxStreamWriter(out, "Contracts");
+
+        sheet.startRow();
+        for (String header : HEADERS) sheet.header(header);
+
+        long count = 0;
+        while (rows.hasNext()) {
+            if (!sheet.startRow()) {
+                System.err.println("Contract export truncated at the XLSX row limit of " + XlsxStreamWriter.MAX_ROWS);
+                break;
+            }
+            Object[] row = rows.next();
+            sheet.number((Long) row[0]);
+            sheet.text((String) row[1]);
+            sheet.text(row[2] != null ? ((Contract.Status) row[2]).getDisplayName() : null);
+            sheet.text(row[3] != null ? ((Contract.Party) row[3]).getDisplayName() : null);
+            sheet.text((String) row[4]);
+            sheet.date((LocalDate) row[5]);
+            sheet.date((LocalDate) row[6]);
+            sheet.text((String) row[7]);
+            sheet.text(attachmentName(row));
+            sheet.text((String) row[10]);
+            if (++count % FLUSH_EVERY_ROWS == 0) sheet.flush();
+        }
+        sheet.finish();
+    }
+
+    // Display name of the main document: original upload name, else the stored name
+    private static String attachmentName(Object[] row) {
+        return row[8] != null ? (String) row[8] : (String) row[9];
+    }
+}
@@ -0,0 +1,422 @@
+package com.cms.service;
+
+import com.cms.event.ContractsImportedEvent;
+import com.cms.model.Contract;
+import com.cms.model.User;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceException;
+import jakarta.persistence.PersistenceUnit;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bulk import of contracts from an uploaded CSV.
+ *
+ * The file is read one record at a time. Each row is validated against
+ * the Contract constraints; valid rows are inserted in JDBC batches, each
+ * batch committed in its own transaction, and every rejected row is
+ * written to an error report together with its original values, so the
+ * report can be fixed and imported again. Imported contracts belong to
+ * the user who uploaded the file. The import page streams the file as the
+ * request body, so it is held to cms.import.max-file-size rather than the
+ * global multipart limits.
+ */
+@Service
+public class ContractImportService {
+
+    private static final String INSERT_SQL = "INSERT INTO contracts "
+            + "(id, title, description, start_date, end_date, status, party, contract_type, user_id) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int MAX_TEXT_COLUMN = 255;
+    // Finished jobs and their error reports are dropped after this long
+    private static final long JOB_RETENTION_HOURS = 24;
+    private static final int COPY_BUFFER_BYTES = 64 * 1024;
+
+    @Value("${cms.import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${cms.import.max-file-size:512MB}")
+    private DataSize maxFileSize;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PersistenceUnit
+    private EntityManagerFactory entityManagerFactory;
+
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+
+    // A row that passed validation, waiting for its batch
+    private static class PendingRow {
+        final long rowNumber;
+        final List<String> record;
+        final Contract contract;
+
+        PendingRow(long rowNumber, List<String> record, Contract contract) {
+            this.rowNumber = rowNumber;
+            this.record = record;
+            this.contract = contract;
+        }
+    }
+
+    // ── Jobs ──────────────────────────────────────────────────
+
+    /**
+     * Keep a copy of the upload (the multipart temp file is gone once the
+     * request ends) and register a queued job for it.
+     */
+    public ImportJob createJob(User user, MultipartFile file) throws IOException {
+        if (file == null || file.isEmpty()) {
+            throw new IllegalArgumentException("Please select a CSV file to import.");
+        }
+        try (InputStream content = file.getInputStream()) {
+            return createJob(user, file.getOriginalFilename(), content, file.getSize());
+        }
+    }
+
+    /**
+     * Copies an uploaded CSV to a temp file and registers its job. The
+     * length is the declared size, or -1 if unknown; the copy itself is
+     * cut off at the import limit either way.
+     */
+    public ImportJob createJob(User user, String fileName, InputStream content, long length) throws IOException {
+        String name = fileName != null && !fileName.isBlank()
+                ? Paths.get(fileName).getFileName().toString()
+                : "import.csv";
+        if (!name.toLowerCase(Locale.ROOT).endsWith(".csv")) {
+            throw new IllegalArgumentException("Only .csv files can be imported.");
+        }
+        long limit = maxFileSize.toBytes();
+        if (length > limit) throw tooLarge();
+
+        purgeOldJobs();
+        Path upload = Files.createTempFile("contract-import-", ".csv");
+        long copied = 0;
+        try (OutputStream out = Files.newOutputStream(upload)) {
+            byte[] buffer = new byte[COPY_BUFFER_BYTES];
+            int read;
+            while ((read = content.read(buffer)) != -1) {
+                copied += read;
+                if (copied > limit) throw tooLarge();
+                out.write(buffer, 0, read);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(upload);
+            throw e;
+        }
+        if (copied == 0) {
+            Files.deleteIfExists(upload);
+            throw new IllegalArgumentException("Please select a CSV file to import.");
+        }
+
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), user.getId(), name, upload,
+                upload.resolveSibling(upload.getFileName() + ".errors.csv"));
+        jobs.put(job.getId(), job);
+        return job;
+    }
+
+    private IllegalArgumentException tooLarge() {
+        return new IllegalArgumentException("The file is larger than the " + maxFileSize.toMegabytes()
+                + " MB import limit.");
+    }
+
+    public Optional<ImportJob> findJob(User user, String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).filter(j -> j.getUserId().equals(user.getId()));
+    }
+
+    /**
+     * The rejected rows of a finished job, or null if there were none.
+     */
+    public Path getErrorReport(ImportJob job) {
+        return job.isFinished() && job.getRejected() > 0 && Files.exists(job.getErrorReport())
+                ? job.getErrorReport()
+                : null;
+    }
+
+    @Async
+    public void runInBackground(ImportJob job) {
+        run(job);
+    }
+
+    private void purgeOldJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(JOB_RETENTION_HOURS);
+        jobs.values().removeIf(job -> {
+            if (!job.isFinished() || job.getFinishedAt().isAfter(cutoff)) return false;
+            try {
+                Files.deleteIfExists(job.getErrorReport());
+            } catch (IOException e) {
+                System.err.println("Could not delete import report " + job.getErrorReport() + ": " + e.getMessage());
+            }
+            return true;
+        });
+    }
+
+    // ── Import ────────────────────────────────────────────────
+    public void run(ImportJob job) {
+        job.setStatus(ImportJob.Status.RUNNING);
+        try (BufferedReader reader = Files.newBufferedReader(job.getUpload(), StandardCharsets.UTF_8);
+             Writer report = Files.newBufferedWriter(job.getErrorReport(), StandardCharsets.UTF_8)) {
+            CsvReader csv = new CsvReader(reader);
+            CsvWriter errors = new CsvWriter(report, false);
+
+            List<String> header = csv.readRecord();
+            if (header == null) {
+                fail(job, "The file is empty.");
+                return;
+            }
+            Map<String, Integer> columns = mapColumns(header);
+            List<String> missing = new ArrayList<>();
+            for (String required : new String[]{"title", "startdate", "enddate"}) {
+                if (!columns.containsKey(required)) missing.add(required);
+            }
+            if (!missing.isEmpty()) {
+                fail(job, "Missing required column(s): " + String.join(", ", missing)
+                        + ". Expected Title, Start Date and End Date.");
+                return;
+            }
+
+            List<String> reportHeader = new ArrayList<>(List.of("Row", "Errors"));
+            reportHeader.addAll(header);
+            errors.writeRow(reportHeader);
+
+            List<PendingRow> batch = new ArrayList<>(batchSize);
+            long rowNumber = 1; // the header is row 1
+            List<String> record;
+            while ((record = csv.readRecord()) != null) {
+                rowNumber++;
+                job.setRowsRead(job.getRowsRead() + 1);
+
+                List<String> problems = new ArrayList<>();
+                Contract contract = parseRow(record, columns, problems);
+                if (!problems.isEmpty()) {
+                    reject(job, errors, rowNumber, record, String.join("; ", problems));
+                    continue;
+                }
+                batch.add(new PendingRow(rowNumber, record, contract));
+                if (batch.size() >= batchSize) {
+                    insertBatch(job, batch, errors);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) insertBatch(job, batch, errors);
+
+            job.setStatus(ImportJob.Status.DONE);
+            job.setFinishedAt(LocalDateTime.now());
+        } catch (IOException | RuntimeException e) {
+            fail(job, "Import stopped after " + job.getRowsRead() + " row(s): " + e.getMessage());
+        } finally {
+            try {
+                Files.deleteIfExists(job.getUpload());
+            } catch (IOException e) {
+                System.err.println("Could not delete import upload " + job.getUpload() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void fail(ImportJob job, String message) {
+        job.setMessage(message);
+        job.setStatus(ImportJob.Status.FAILED);
+        job.setFinishedAt(LocalDateTime.now());
+    }
+
+    private void reject(ImportJob job, CsvWriter errors, long rowNumber, List<String> record, String problem)
+            throws IOException {
+        List<String> line = new ArrayList<>(record.size() + 2);
+        line.add(String.valueOf(rowNumber));
+        line.add(problem);
+        line.addAll(record);
+        errors.writeRow(line);
+        job.setRejected(job.getRejected() + 1);
+    }
+
+    /**
+     * Inserts one batch in its own transaction. A failing batch is rolled
+     * back and all its rows are reported; the import goes on with the next.
+     */
+    private void insertBatch(ImportJob job, List<PendingRow> batch, CsvWriter errors) throws IOException {
+        Long userId = job.getUserId();
+        List<Long> ids;
+        try {
+            ids = allocateContractIds(batch.size());
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+                try (PreparedStatement ps = con.prepareStatement(INSERT_SQL)) {
+                    for (int i = 0; i < batch.size(); i++) {
+                        Contract c = batch.get(i).contract;
+                        ps.setLong(1, ids.get(i));
+                        ps.setString(2, c.getTitle());
+                        ps.setString(3, c.getDescription());
+                        ps.setDate(4, Date.valueOf(c.getStartDate()));
+                        ps.setDate(5, Date.valueOf(c.getEndDate()));
+                        ps.setString(6, c.getStatus().name());
+                        if (c.getParty() != null) ps.setString(7, c.getParty().name());
+                        else ps.setNull(7, Types.VARCHAR);
+                        ps.setString(8, c.getContractType());
+                        ps.setLong(9, userId);
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                    return null;
+                }
+            }));
+        } catch (DataAccessException | PersistenceException e) {
+            String message = "Not saved: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            for (PendingRow row : batch) {
+                reject(job, errors, row.rowNumber, row.record, message);
+            }
+            return;
+        }
+
+        job.setImported(job.getImported() + batch.size());
+        eventPublisher.publishEvent(new ContractsImportedEvent(userId, ids));
+    }
+
+    /**
+     * Takes ids from the same pooled generator Hibernate uses for Contract,
+     * so imported rows never collide with contracts saved through JPA.
+     */
+    private List<Long> allocateContractIds(int count) {
+        SessionFactoryImplementor factory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        IdentifierGenerator generator = (IdentifierGenerator) factory.getMappingMetamodel()
+                .getEntityDescriptor(Contract.class).getGenerator();
+        List<Long> ids = new ArrayList<>(count);
+        try (StatelessSession session = factory.openStatelessSession()) {
+            for (int i = 0; i < count; i++) {
+                ids.add((Long) generator.generate((SharedSessionContractImplementor) session, null));
+            }
+        }
+        return ids;
+    }
+
+    // ── Row parsing and validation ────────────────────────────
+
+    // Header names are matched loosely: "Start Date", "start_date" and "startDate" are the same column
+    private static Map<String, Integer> mapColumns(List<String> header) {
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String key = header.get(i).toLowerCase(Locale.ROOT).replaceAll("[^a-z]", "");
+            if (key.equals("type")) key = "contracttype";
+            columns.putIfAbsent(key, i);
+        }
+        return columns;
+    }
+
+    private Contract parseRow(List<String> record, Map<String, Integer> columns, List<String> problems) {
+        Contract contract = new Contract();
+        contract.setTitle(field(record, columns, "title"));
+        contract.setDescription(field(record, columns, "description"));
+        contract.setContractType(field(record, columns, "contracttype"));
+        contract.setStartDate(parseDate(field(record, columns, "startdate"), "Start date", problems));
+        contract.setEndDate(parseDate(field(record, columns, "enddate"), "End date", problems));
+
+        String status = field(record, columns, "status");
+        if (status != null) {
+            Contract.Status parsed = parseStatus(status);
+            if (parsed == null) problems.add("Unknown status \"" + status + "\"");
+            else contract.setStatus(parsed);
+        }
+        String party = field(record, columns, "party");
+        if (party != null) {
+            Contract.Party parsed = parseParty(party);
+            if (parsed == null) problems.add("Unknown party \"" + party + "\"");
+            else contract.setParty(parsed);
+        }
+
+        for (ConstraintViolation<Contract> violation : validator.validate(contract)) {
+            // A date that failed to parse is already reported
+            String property = violation.getPropertyPath().toString();
+            if ((property.equals("startDate") && field(record, columns, "startdate") != null)
+                    || (property.equals("endDate") && field(record, columns, "enddate") != null)) continue;
+            problems.add(violation.getMessage());
+        }
+        if (contract.getTitle() != null && contract.getTitle().length() > MAX_TEXT_COLUMN) {
+            problems.add("Title is longer than " + MAX_TEXT_COLUMN + " characters");
+        }
+        if (contract.getContractType() != null && contract.getContractType().length() > MAX_TEXT_COLUMN) {
+            problems.add("Contract type is longer than " + MAX_TEXT_COLUMN + " characters");
+        }
+        return contract;
+    }
+
+    // Trimmed value of a column, null when the column is absent or blank
+    private static String field(List<String> record, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= record.size()) return null;
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static LocalDate parseDate(String value, String label, List<String> problems) {
+        if (value == null) return null;
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            problems.add(label + " \"" + value + "\" is not a date (yyyy-MM-dd)");
+            return null;
+        }
+    }
+
+    // By constant name or display name, e.g. "RUNNING" or "Running"
+    private static Contract.Status parseStatus(String value) {
+        for (Contract.Status s : Contract.Status.values()) {
+            if (s.name().equalsIgnoreCase(value) || s.getDisplayName().equalsIgnoreCase(value)) return s;
+        }
+        return null;
+    }
+
+    private static Contract.Party parseParty(String value) {
+        for (Contract.Party p : Contract.Party.values()) {
+            if (p.name().equalsIgnoreCase(value) || p.getDisplayName().equalsIgnoreCase(value)) return p;
+        }
+        return null;
+    }
+}
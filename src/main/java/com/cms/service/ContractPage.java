@@ -0,0 +1,40 @@
+package com.cms.service;
+
+import com.cms.model.Contract;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of contracts plus the cursor for the page after it: the last
+ * id shown, or for keyword searches the rank position to resume from.
+ * nextCursor is null when this is the last page. snippets holds search
+ * excerpts by contract id when the page came from a keyword search.
+ * ownerNames maps owner id to full name; it is only filled for admins,
+ * who see the owner column.
+ */
+public class ContractPage {
+
+    private final List<Contract> contracts;
+    private final Long nextCursor;
+    private final Map<Long, String> snippets;
+    private final Map<Long, String> ownerNames;
+
+    public ContractPage(List<Contract> contracts, Long nextCursor, Map<Long, String> snippets,
+                        Map<Long, String> ownerNames) {
+        this.contracts = contracts;
+        this.nextCursor = nextCursor;
+        this.snippets = snippets;
+        this.ownerNames = ownerNames;
+    }
+
+    public List<Contract> getContracts() { return contracts; }
+
+    public Long getNextCursor() { return nextCursor; }
+
+    public Map<Long, String> getSnippets() { return snippets; }
+
+    public Map<Long, String> getOwnerNames() { return ownerNames; }
+
+    public boolean hasNext() { return nextCursor != null; }
+}
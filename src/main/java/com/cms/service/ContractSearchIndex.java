@@ -0,0 +1,492 @@
+package com.cms.service;
+
+import com.cms.event.ContractChangedEvent;
+import com.cms.event.ContractFilesChangedEvent;
+import com.cms.event.ContractsDeletedEvent;
+import com.cms.event.ContractsImportedEvent;
+import com.cms.event.DocumentTextExtractedEvent;
+import com.cms.model.Contract;
+import com.cms.model.User;
+import com.cms.repository.ContractRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Embedded inverted index over contract title, description and PDF text.
+ *
+ * Queries are ranked with BM25, every query term must match (exactly or as
+ * a prefix of an indexed term), and USER-role scoping is applied while
+ * walking the postings. All writes go through a single background thread,
+ * so live changes and the startup rebuild are applied in order and never
+ * run on a request thread.
+ *
+ * Memory grows with the number of (term, contract) pairs, not with the
+ * text: each term's postings are parallel id/weight arrays, and a contract
+ * keeps only its owner, length and the ids of its terms, so it can be
+ * removed again. No text is held; titles and snippets are read from the
+ * database for the hits actually shown.
+ */
+@Service
+public class ContractSearchIndex {
+
+    private static final int REBUILD_BATCH_SIZE = 500;
+    private static final long REBUILD_RETRY_SECONDS = 30;
+    private static final int MAX_PREFIX_EXPANSIONS = 50;
+    private static final int SNIPPET_RADIUS = 80;
+    private static final float TITLE_BOOST = 3.0f;
+    private static final double PREFIX_WEIGHT = 0.7;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    @Autowired
+    private ContractRepository contractRepository;
+
+    @Autowired
+    private DocumentTextService documentTextService;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, Postings> postings = new TreeMap<>();
+    private final List<Postings> postingsByTermId = new ArrayList<>();
+    private final Deque<Integer> freeTermIds = new ArrayDeque<>();
+    private final Map<Long, IndexedContract> contracts = new HashMap<>();
+    private double totalLength;
+
+    private final ScheduledExecutorService indexer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "search-indexer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private volatile boolean ready;
+
+    private static class IndexedContract {
+        final long userId;
+        final float length;
+        final int[] termIds;
+
+        IndexedContract(long userId, float length, int[] termIds) {
+            this.userId = userId;
+            this.length = length;
+            this.termIds = termIds;
+        }
+    }
+
+    // Contracts containing one term: ids in ascending order and their weights
+    private static class Postings {
+        final String term;
+        final int termId;
+        long[] ids = new long[1];
+        float[] weights = new float[1];
+        int size;
+
+        Postings(String term, int termId) {
+            this.term = term;
+            this.termId = termId;
+        }
+
+        void put(long id, float weight) {
+            int i = Arrays.binarySearch(ids, 0, size, id);
+            if (i >= 0) {
+                weights[i] = weight;
+                return;
+            }
+            i = -i - 1;
+            if (size == ids.length) {
+                int capacity = size < 4 ? size + 1 : size + (size >> 1);
+                ids = Arrays.copyOf(ids, capacity);
+                weights = Arrays.copyOf(weights, capacity);
+            }
+            System.arraycopy(ids, i, ids, i + 1, size - i);
+            System.arraycopy(weights, i, weights, i + 1, size - i);
+            ids[i] = id;
+            weights[i] = weight;
+            size++;
+        }
+
+        void remove(long id) {
+            int i = Arrays.binarySearch(ids, 0, size, id);
+            if (i < 0) return;
+            System.arraycopy(ids, i + 1, ids, i, size - i - 1);
+            System.arraycopy(weights, i + 1, weights, i, size - i - 1);
+            size--;
+            // Give back the space of a list that has mostly emptied
+            if (ids.length > 16 && size < ids.length / 4) {
+                ids = Arrays.copyOf(ids, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+        }
+    }
+
+    // ── Query ─────────────────────────────────────────────────
+
+    /**
+     * False until the startup rebuild has finished; callers should fall
+     * back to a database search meanwhile.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    public List<SearchHit> search(User user, String query, int limit) {
+        List<String> queryTerms = queryTerms(query);
+        if (queryTerms.isEmpty()) return List.of();
+
+        List<Map.Entry<Long, Double>> top;
+        lock.readLock().lock();
+        try {
+            List<Map.Entry<Long, Double>> ranked = ranked(score(queryTerms, user));
+            top = new ArrayList<>(ranked.subList(0, Math.min(limit, ranked.size())));
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Long> ids = new ArrayList<>(top.size());
+        for (Map.Entry<Long, Double> e : top) ids.add(e.getKey());
+        Map<Long, Contract> byId = new HashMap<>();
+        for (Contract c : contractRepository.findAllById(ids)) byId.put(c.getId(), c);
+
+        List<SearchHit> hits = new ArrayList<>(top.size());
+        for (Map.Entry<Long, Double> e : top) {
+            Contract contract = byId.get(e.getKey());
+            // Deleted since it was ranked
+            if (contract == null) continue;
+            hits.add(new SearchHit(e.getKey(), contract.getTitle(), e.getValue(), snippet(contract, queryTerms)));
+        }
+        return hits;
+    }
+
+    /**
+     * Ids of every contract matching the query, best match first (ties
+     * newest first). Nothing is cut off, so callers can page through all
+     * matches in relevance order.
+     */
+    public List<Long> rank(User user, String query) {
+        List<String> queryTerms = queryTerms(query);
+        if (queryTerms.isEmpty()) return List.of();
+
+        lock.readLock().lock();
+        try {
+            List<Map.Entry<Long, Double>> ranked = ranked(score(queryTerms, user));
+            List<Long> ids = new ArrayList<>(ranked.size());
+            for (Map.Entry<Long, Double> e : ranked) ids.add(e.getKey());
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Excerpts around the query terms for the given contracts, e.g. the
+     * ones on the page being shown. Read from the database, so matches
+     * anywhere in a long attachment are found.
+     */
+    public Map<Long, String> snippets(Collection<Contract> contracts, String query) {
+        List<String> queryTerms = queryTerms(query);
+        Map<Long, String> snippets = new HashMap<>();
+        if (queryTerms.isEmpty()) return snippets;
+
+        for (Contract contract : contracts) {
+            snippets.put(contract.getId(), snippet(contract, queryTerms));
+        }
+        return snippets;
+    }
+
+    private static List<String> queryTerms(String query) {
+        return new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+    }
+
+    // Caller holds the read lock. Every query term must match.
+    private Map<Long, Double> score(List<String> queryTerms, User user) {
+        Long scopeUserId = user.getRole() == User.Role.ADMIN ? null : user.getId();
+        Map<Long, Double> scores = null;
+        for (String term : queryTerms) {
+            Map<Long, Double> termScores = scoreTerm(term, scopeUserId);
+            if (scores == null) {
+                scores = termScores;
+            } else {
+                scores.keySet().retainAll(termScores.keySet());
+                scores.replaceAll((id, score) -> score + termScores.get(id));
+            }
+            if (scores.isEmpty()) break;
+        }
+        return scores;
+    }
+
+    private static List<Map.Entry<Long, Double>> ranked(Map<Long, Double> scores) {
+        List<Map.Entry<Long, Double>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort(Map.Entry.<Long, Double>comparingByValue().reversed()
+                .thenComparing(Map.Entry.<Long, Double>comparingByKey().reversed()));
+        return ranked;
+    }
+
+    // Caller holds the read lock
+    private Map<Long, Double> scoreTerm(String term, Long scopeUserId) {
+        Map<Long, Double> scores = new HashMap<>();
+        int n = contracts.size();
+        double avgLength = n == 0 ? 1 : totalLength / n;
+
+        // The exact term sorts first in its own prefix range, so it is never cut by the expansion cap
+        int expansions = 0;
+        for (Postings matches : postings.subMap(term, true, term + Character.MAX_VALUE, false).values()) {
+            if (expansions++ >= MAX_PREFIX_EXPANSIONS) break;
+
+            double weight = matches.term.equals(term) ? 1.0 : PREFIX_WEIGHT;
+            double idf = Math.log(1 + (n - matches.size + 0.5) / (matches.size + 0.5));
+
+            for (int i = 0; i < matches.size; i++) {
+                Long id = matches.ids[i];
+                IndexedContract doc = contracts.get(id);
+                if (scopeUserId != null && scopeUserId != doc.userId) continue;
+
+                double tf = matches.weights[i];
+                double score = weight * idf * tf * (K1 + 1) / (tf + K1 * (1 - B + B * doc.length / avgLength));
+                scores.merge(id, score, Math::max);
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * Excerpt around the earliest query term in the description, else in
+     * the first attachment page containing one. A title-only match shows
+     * the start of the description.
+     */
+    private String snippet(Contract contract, List<String> queryTerms) {
+        String description = contract.getDescription() != null ? contract.getDescription() : "";
+        int hit = firstHit(description, queryTerms);
+        if (hit >= 0) return excerpt(description, hit);
+
+        String page = documentTextService.findFirstPageMatching(contract.getFileHash(), queryTerms);
+        if (page != null) return excerpt(page, Math.max(0, firstHit(page, queryTerms)));
+        return description.isEmpty() ? "" : excerpt(description, 0);
+    }
+
+    private static int firstHit(String text, List<String> queryTerms) {
+        String lower = text.toLowerCase(Locale.ROOT);
+        int hit = -1;
+        for (String term : queryTerms) {
+            int pos = lower.indexOf(term);
+            if (pos >= 0 && (hit < 0 || pos < hit)) hit = pos;
+        }
+        return hit;
+    }
+
+    private static String excerpt(String text, int hit) {
+        int start = Math.max(0, hit - SNIPPET_RADIUS);
+        int end = Math.min(text.length(), hit + SNIPPET_RADIUS);
+        String excerpt = text.substring(start, end).replaceAll("\\s+", " ").trim();
+        return (start > 0 ? "…" : "") + excerpt + (end < text.length() ? "…" : "");
+    }
+
+    // ── Sync with contract changes ────────────────────────────
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onContractChanged(ContractChangedEvent event) {
+        Long id = event.getContractId();
+        if (event.getKind() == ContractChangedEvent.Kind.DELETED) {
+            indexer.execute(() -> remove(id));
+            return;
+        }
+
+        // Snapshot now: the entity may be changed again before the indexer gets to it
+        Contract contract = event.getContract();
+        Long userId = event.getUserId();
+        String title = contract.getTitle();
+        String description = contract.getDescription();
+        String fileHash = contract.getFileHash();
+        indexer.execute(() -> put(id, userId, title, description, documentTextService.findReadyText(fileHash)));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onContractsDeleted(ContractsDeletedEvent event) {
+        List<Long> ids = event.getContractIds();
+        indexer.execute(() -> ids.forEach(this::remove));
+    }
+
+    /**
+     * Bulk imports insert through JDBC, so index each imported batch here.
+     * Imported contracts have no attachment text.
+     */
+    @EventListener
+    public void onContractsImported(ContractsImportedEvent event) {
+        List<Long> ids = event.getContractIds();
+        indexer.execute(() -> {
+            for (Contract c : contractRepository.findAllById(ids)) {
+                put(c.getId(), c.getUser().getId(), c.getTitle(), c.getDescription(), null);
+            }
+        });
+    }
+
+    /**
+     * Bulk file rewrites (storage migration, hash back-fill) change which
+     * extracted text a contract has, so re-index those contracts.
+     */
+    @EventListener
+    public void onContractFilesChanged(ContractFilesChangedEvent event) {
+        List<Long> ids = event.getContractIds();
+        indexer.execute(() -> putAll(contractRepository.findAllById(ids)));
+    }
+
+    /**
+     * PDF text is extracted after the contract is saved, so re-index every
+     * contract sharing that attachment once its text is stored.
+     */
+    @EventListener
+    public void onDocumentTextExtracted(DocumentTextExtractedEvent event) {
+        String fileHash = event.getContentHash();
+        indexer.execute(() -> {
+            String text = documentTextService.findReadyText(fileHash);
+            for (Contract c : contractRepository.findByFileHash(fileHash)) {
+                put(c.getId(), c.getUser().getId(), c.getTitle(), c.getDescription(), text);
+            }
+        });
+    }
+
+    // ── Online rebuild ────────────────────────────────────────
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        indexer.execute(() -> rebuildFrom(0L));
+    }
+
+    /**
+     * Indexes one batch and re-queues the next one behind any live changes
+     * that arrived meanwhile, so edits are never held up by a long rebuild.
+     * A failed batch is retried after a pause, so a database hiccup does
+     * not leave search on the fallback until the next restart.
+     */
+    private void rebuildFrom(Long afterId) {
+        try {
+            List<Contract> batch = contractRepository.findByIdGreaterThanOrderByIdAsc(afterId,
+                    Limit.of(REBUILD_BATCH_SIZE));
+            putAll(batch);
+            if (batch.size() < REBUILD_BATCH_SIZE) {
+                ready = true;
+                return;
+            }
+            Long lastId = batch.get(batch.size() - 1).getId();
+            indexer.execute(() -> rebuildFrom(lastId));
+        } catch (RuntimeException e) {
+            System.err.println("Search index rebuild failed after contract " + afterId + ", retrying in "
+                    + REBUILD_RETRY_SECONDS + "s: " + e.getMessage());
+            indexer.schedule(() -> rebuildFrom(afterId), REBUILD_RETRY_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    // ── Index maintenance (indexer thread only) ───────────────
+
+    // Indexes a batch of contracts, reading their extracted texts in one query
+    private void putAll(List<Contract> batch) {
+        Set<String> hashes = new HashSet<>();
+        for (Contract c : batch) {
+            if (c.getFileHash() != null) hashes.add(c.getFileHash());
+        }
+        Map<String, String> texts = documentTextService.findReadyTexts(hashes);
+        for (Contract c : batch) {
+            put(c.getId(), c.getUser().getId(), c.getTitle(), c.getDescription(),
+                    c.getFileHash() != null ? texts.get(c.getFileHash()) : null);
+        }
+    }
+
+    private void put(Long id, Long userId, String title, String description, String attachmentText) {
+        Map<String, Float> terms = new HashMap<>();
+        addTerms(terms, title, TITLE_BOOST);
+        addTerms(terms, description, 1f);
+        addTerms(terms, attachmentText, 1f);
+
+        float length = 0;
+        for (float weight : terms.values()) length += weight;
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            int[] termIds = new int[terms.size()];
+            int k = 0;
+            for (Map.Entry<String, Float> e : terms.entrySet()) {
+                Postings matches = postings.get(e.getKey());
+                if (matches == null) {
+                    matches = new Postings(e.getKey(), newTermId());
+                    postings.put(e.getKey(), matches);
+                    postingsByTermId.set(matches.termId, matches);
+                }
+                matches.put(id, e.getValue());
+                termIds[k++] = matches.termId;
+            }
+            contracts.put(id, new IndexedContract(userId, length, termIds));
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Write lock held. Ids of terms no contract uses any more are reused.
+    private int newTermId() {
+        if (!freeTermIds.isEmpty()) return freeTermIds.pop();
+        postingsByTermId.add(null);
+        return postingsByTermId.size() - 1;
+    }
+
+    private void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeLocked(Long id) {
+        IndexedContract old = contracts.remove(id);
+        if (old == null) return;
+
+        totalLength -= old.length;
+        for (int termId : old.termIds) {
+            Postings matches = postingsByTermId.get(termId);
+            matches.remove(id);
+            if (matches.size == 0) {
+                postings.remove(matches.term);
+                postingsByTermId.set(termId, null);
+                freeTermIds.push(termId);
+            }
+        }
+    }
+
+    private static void addTerms(Map<String, Float> terms, String text, float weight) {
+        for (String token : tokenize(text)) {
+            terms.merge(token, weight, Float::sum);
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) return tokens;
+
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                if (i - start >= 2) tokens.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        indexer.shutdownNow();
+    }
+}
@@ -1,24 +1,54 @@
 package com.cms.service;
 
+import com.cms.event.ContractsDeletedEvent;
+import com.cms.model.Attachment;
 import com.cms.model.Contract;
 import com.cms.model.User;
+import com.cms.repository.AttachmentRepository;
 import com.cms.repository.ContractRepository;
 import com.cms.repository.ContractSpecification;
+import com.cms.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class ContractService {
 
+    public static final int PAGE_SIZE = 25;
+    // Ranked search hits are matched against the other filters this many at a time
+    private static final int RANK_CHUNK_SIZE = 500;
+
     @Autowired
     private ContractRepository contractRepository;
 
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AttachmentRepository attachmentRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ContractStatsCache contractStatsCache;
+
+    @Autowired
+    private ContractSearchIndex contractSearchIndex;
+
     // ── CRUD ──────────────────────────────────────────────────
     public Contract saveContract(Contract contract) {
         return contractRepository.save(contract);
@@ -28,8 +58,30 @@ public class ContractService {
         return contractRepository.findById(id);
     }
 
-    public void deleteContract(Long id) {
-        contractRepository.deleteById(id);
+    /**
+     * The contract with its owner loaded in the same query, for pages that
+     * show the owner's name.
+     */
+    public Optional<Contract> findByIdWithOwner(Long id) {
+        return contractRepository.findWithOwnerById(id);
+    }
+
+    /**
+     * Deletes the contract with its attachment rows, then releases the main
+     * file and every attachment; blobs stay while other contracts share them.
+     */
+    public void deleteContract(Contract contract) {
+        List<String> fileNames = new ArrayList<>();
+        if (contract.getFileName() != null && !contract.getFileName().isEmpty()) {
+            fileNames.add(contract.getFileName());
+        }
+        for (Attachment attachment : attachmentRepository.findByContractIdOrderByIdAsc(contract.getId())) {
+            fileNames.add(attachment.getFileName());
+        }
+
+        contractRepository.deleteById(contract.getId());
+        eventPublisher.publishEvent(new ContractsDeletedEvent(contract.getUser().getId(),
+                List.of(contract.getId()), fileNames));
     }
 
     // ── Role-based Listing ────────────────────────────────────
@@ -60,22 +112,146 @@ public class ContractService {
         );
     }
 
-    // ── Statistics ────────────────────────────────────────────
-    public Map<String, Long> getStatsForUser(User user) {
-        Map<String, Long> stats = new HashMap<>();
+    // ── Keyset Paging (dashboard) ─────────────────────────────
+
+    /**
+     * One dashboard page. Without a keyword the rows come newest first and
+     * the cursor is the last id shown. A keyword goes to the full-text index
+     * once it is built: every match is kept, rows come in relevance order
+     * and the cursor is the rank position to resume from.
+     */
+    public ContractPage findContractsPage(User user,
+                                          String keyword,
+                                          Contract.Status status,
+                                          Contract.Party party,
+                                          String contractType,
+                                          LocalDate fromDate,
+                                          LocalDate toDate,
+                                          Long cursor) {
+        List<Long> ranked = rankKeyword(user, keyword);
+        if (ranked != null) {
+            return findRankedPage(user, keyword, ranked,
+                    filterSpec(user, null, status, party, contractType, fromDate, toDate), cursor);
+        }
+
+        Specification<Contract> spec = filterSpec(user, keyword, status, party, contractType, fromDate, toDate)
+                .and(ContractSpecification.idBefore(cursor));
+
+        // Fetch one extra row to learn whether another page exists
+        List<Contract> rows = contractRepository.findBy(spec, q -> q.limit(PAGE_SIZE + 1).all());
+        List<Contract> page = rows.size() <= PAGE_SIZE ? rows : rows.subList(0, PAGE_SIZE);
+        Long nextCursor = rows.size() <= PAGE_SIZE ? null : page.get(PAGE_SIZE - 1).getId();
+        return new ContractPage(page, nextCursor, Map.of(), findOwnerNames(user, page));
+    }
+
+    /**
+     * Walks the ranked ids from the cursor position in chunks, keeping the
+     * ones that also pass the other filters, until a page plus one more
+     * match is found or the ranking runs out.
+     */
+    private ContractPage findRankedPage(User user, String keyword, List<Long> ranked,
+                                        Specification<Contract> filters, Long cursor) {
+        int position = cursor != null ? (int) Math.max(0, Math.min(cursor, ranked.size())) : 0;
+        List<Contract> page = new ArrayList<>();
+        Long nextCursor = null;
+
+        while (position < ranked.size() && nextCursor == null) {
+            List<Long> chunk = new ArrayList<>(ranked.subList(position,
+                    Math.min(position + RANK_CHUNK_SIZE, ranked.size())));
+            Map<Long, Contract> matches = new HashMap<>();
+            for (Contract c : contractRepository.findAll(filters.and(ContractSpecification.idIn(chunk)))) {
+                matches.put(c.getId(), c);
+            }
+            for (Long id : chunk) {
+                Contract c = matches.get(id);
+                if (c != null) {
+                    if (page.size() == PAGE_SIZE) {
+                        nextCursor = (long) position;
+                        break;
+                    }
+                    page.add(c);
+                }
+                position++;
+            }
+        }
+
+        return new ContractPage(page, nextCursor, contractSearchIndex.snippets(page, keyword),
+                findOwnerNames(user, page));
+    }
+
+    /**
+     * Ids of every full-text match of the keyword, best first, or null when
+     * the keyword should be matched as a title LIKE instead: no keyword, no
+     * indexable terms, or the index is still being built.
+     */
+    public List<Long> rankKeyword(User user, String keyword) {
+        if (keyword == null || !contractSearchIndex.isReady()
+                || ContractSearchIndex.tokenize(keyword).isEmpty()) {
+            return null;
+        }
+        return contractSearchIndex.rank(user, keyword);
+    }
+
+    /**
+     * Owner names for a page of contracts in one narrow query, instead of
+     * loading every owner's full User row. Reading the owner id from the
+     * lazy association does not load it. Only admins see the owner column.
+     */
+    private Map<Long, String> findOwnerNames(User user, List<Contract> contracts) {
+        Map<Long, String> names = new HashMap<>();
+        if (user.getRole() != User.Role.ADMIN || contracts.isEmpty()) return names;
+
+        Set<Long> ownerIds = new HashSet<>();
+        for (Contract c : contracts) {
+            ownerIds.add(c.getUser().getId());
+        }
+        for (Object[] row : userRepository.findFullNamesByIdIn(ownerIds)) {
+            names.put((Long) row[0], (String) row[1]);
+        }
+        return names;
+    }
+
+    /**
+     * The dashboard filters as a specification, newest first. The keyword,
+     * if given, is a LIKE on the title; pass null when the keyword is
+     * resolved through rankKeyword instead.
+     */
+    public Specification<Contract> filterSpec(User user,
+                                              String keyword,
+                                              Contract.Status status,
+                                              Contract.Party party,
+                                              String contractType,
+                                              LocalDate fromDate,
+                                              LocalDate toDate) {
+        return ContractSpecification.withFilters(user, keyword, status, party, contractType, fromDate, toDate);
+    }
+
+    // ── Contract Types (defaults + custom) ────────────────────
+    public Set<String> getContractTypesForUser(User user) {
+        Set<String> types = new LinkedHashSet<>(Arrays.asList(Contract.DEFAULT_CONTRACT_TYPES));
         if (user.getRole() == User.Role.ADMIN) {
-            stats.put("total", contractRepository.count());
-            stats.put("running", contractRepository.countByStatus(Contract.Status.RUNNING));
-            stats.put("signed", contractRepository.countByStatus(Contract.Status.SIGNED));
-            stats.put("expired", contractRepository.countByStatus(Contract.Status.EXPIRED));
-            stats.put("draft", contractRepository.countByStatus(Contract.Status.DRAFT));
+            types.addAll(contractRepository.findDistinctContractTypes());
         } else {
-            stats.put("total", contractRepository.countByUserId(user.getId()));
-            stats.put("running", contractRepository.countByUserIdAndStatus(user.getId(), Contract.Status.RUNNING));
-            stats.put("signed", contractRepository.countByUserIdAndStatus(user.getId(), Contract.Status.SIGNED));
-            stats.put("expired", contractRepository.countByUserIdAndStatus(user.getId(), Contract.Status.EXPIRED));
-            stats.put("draft", contractRepository.countByUserIdAndStatus(user.getId(), Contract.Status.DRAFT));
+            types.addAll(contractRepository.findDistinctContractTypesByUserId(user.getId()));
         }
+        return types;
+    }
+
+    // ── Statistics ────────────────────────────────────────────
+    public Map<String, Long> getStatsForUser(User user) {
+        long[] counts = contractStatsCache.getCounts(user);
+
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+
+        Map<String, Long> stats = new HashMap<>();
+        stats.put("total", total);
+        stats.put("running", counts[Contract.Status.RUNNING.ordinal()]);
+        stats.put("signed", counts[Contract.Status.SIGNED.ordinal()]);
+        stats.put("expired", counts[Contract.Status.EXPIRED.ordinal()]);
+        stats.put("draft", counts[Contract.Status.DRAFT.ordinal()]);
         return stats;
     }
 }
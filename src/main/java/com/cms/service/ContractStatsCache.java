@@ -0,0 +1,112 @@
+package com.cms.service;
+
+import com.cms.event.ContractChangedEvent;
+import com.cms.event.ContractsDeletedEvent;
+import com.cms.event.ContractsExpiredEvent;
+import com.cms.event.ContractsImportedEvent;
+import com.cms.model.Contract;
+import com.cms.model.User;
+import com.cms.repository.ContractRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory per-status contract counters, one slot for the global (ADMIN)
+ * view and one per USER. A slot is filled by a single GROUP BY query on
+ * first use and then kept current from ContractChangedEvents, so reading
+ * stats costs no queries until something invalidates it. Events are applied
+ * only once their transaction commits, so a rollback never skews a slot.
+ */
+@Service
+public class ContractStatsCache {
+
+    private static final Long GLOBAL = 0L; // IDs start at 1, so 0 never clashes with a user
+
+    @Autowired
+    private ContractRepository contractRepository;
+
+    private final Map<Long, AtomicLongArray> counters = new ConcurrentHashMap<>();
+
+    // ── Read ──────────────────────────────────────────────────
+    public long[] getCounts(User user) {
+        Long key = user.getRole() == User.Role.ADMIN ? GLOBAL : user.getId();
+        AtomicLongArray slot = counters.computeIfAbsent(key, this::load);
+
+        long[] counts = new long[slot.length()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = slot.get(i);
+        }
+        return counts;
+    }
+
+    private AtomicLongArray load(Long key) {
+        List<Object[]> rows = GLOBAL.equals(key)
+                ? contractRepository.countGroupedByStatus()
+                : contractRepository.countGroupedByStatusForUser(key);
+
+        AtomicLongArray slot = new AtomicLongArray(Contract.Status.values().length);
+        for (Object[] row : rows) {
+            slot.set(((Contract.Status) row[0]).ordinal(), (Long) row[1]);
+        }
+        return slot;
+    }
+
+    // ── Maintain ──────────────────────────────────────────────
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onContractChanged(ContractChangedEvent event) {
+        if (event.getOldStatus() == event.getNewStatus()) return;
+
+        apply(GLOBAL, event.getOldStatus(), event.getNewStatus());
+        if (event.getUserId() != null) {
+            apply(event.getUserId(), event.getOldStatus(), event.getNewStatus());
+        }
+    }
+
+    private void apply(Long key, Contract.Status oldStatus, Contract.Status newStatus) {
+        // Only adjust slots that are already loaded; a missing slot is rebuilt from the DB
+        counters.computeIfPresent(key, (k, slot) -> {
+            if (oldStatus != null) slot.decrementAndGet(oldStatus.ordinal());
+            if (newStatus != null) slot.incrementAndGet(newStatus.ordinal());
+            return slot;
+        });
+    }
+
+    /**
+     * Bulk expiry bypasses entity callbacks, so drop the affected slots
+     * and let the next read rebuild them with one GROUP BY.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onContractsExpired(ContractsExpiredEvent event) {
+        counters.remove(GLOBAL);
+        event.getUserIds().forEach(counters::remove);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onContractsImported(ContractsImportedEvent event) {
+        counters.remove(GLOBAL);
+        counters.remove(event.getUserId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onContractsDeleted(ContractsDeletedEvent event) {
+        counters.remove(GLOBAL);
+        counters.remove(event.getUserId());
+    }
+
+    /**
+     * Drops every slot. Called for bulk changes that bypass entity events,
+     * and every 10 minutes as a safety net so any drift is short-lived.
+     */
+    @Scheduled(fixedRate = 600000, initialDelay = 600000)
+    public void evictAll() {
+        counters.clear();
+    }
+}
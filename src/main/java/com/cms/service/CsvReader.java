@@ -0,0 +1,97 @@
+package com.cms.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Forward-only RFC 4180 reader: one record at a time, quoted fields may
+ * hold commas, doubled quotes and line breaks. Only the current record is
+ * held in memory.
+ */
+class CsvReader {
+
+    // A field longer than this is almost certainly an unbalanced quote
+    private static final int MAX_FIELD_CHARS = 1_000_000;
+
+    private final Reader in;
+    private int peeked = -2;
+    private boolean started;
+
+    CsvReader(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * The next record, or null at end of input. Blank lines are skipped.
+     */
+    List<String> readRecord() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean any = false;
+
+        while (true) {
+            int c = read();
+            if (c < 0) {
+                if (quoted) throw new IOException("Unterminated quoted field at end of file");
+                if (!any) return null;
+                fields.add(field.toString());
+                return fields;
+            }
+            any = true;
+
+            if (quoted) {
+                if (c == '"') {
+                    if (peek() == '"') {
+                        read();
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r' || c == '\n') {
+                if (c == '\r' && peek() == '\n') read();
+                if (fields.isEmpty() && field.length() == 0) {
+                    any = false; // blank line
+                    continue;
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+
+            if (field.length() > MAX_FIELD_CHARS) {
+                throw new IOException("Field longer than " + MAX_FIELD_CHARS + " characters");
+            }
+        }
+    }
+
+    private int read() throws IOException {
+        if (peeked != -2) {
+            int c = peeked;
+            peeked = -2;
+            return c;
+        }
+        int c = in.read();
+        if (!started) {
+            started = true;
+            if (c == '\uFEFF') c = in.read(); // UTF-8 BOM written by Excel
+        }
+        return c;
+    }
+
+    private int peek() throws IOException {
+        if (peeked == -2) peeked = read();
+        return peeked;
+    }
+}
@@ -0,0 +1,49 @@
+package com.cms.service;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Writes RFC 4180 records, quoting fields only when they need it.
+ */
+class CsvWriter {
+
+    private final Writer out;
+    private final boolean guardFormulas;
+
+    /**
+     * With guardFormulas, a field starting with =, +, - or @ gets a leading
+     * apostrophe so spreadsheet apps show it instead of running it.
+     */
+    CsvWriter(Writer out, boolean guardFormulas) {
+        this.out = out;
+        this.guardFormulas = guardFormulas;
+    }
+
+    void writeRow(List<String> fields) throws IOException {
+        for (int i = 0; i < fields.size(); i++) {
+            if (i > 0) out.write(',');
+            writeField(fields.get(i));
+        }
+        out.write("\r\n");
+    }
+
+    void flush() throws IOException {
+        out.flush();
+    }
+
+    private void writeField(String value) throws IOException {
+        if (value == null || value.isEmpty()) return;
+        if (guardFormulas && "=+-@".indexOf(value.charAt(0)) >= 0) value = "'" + value;
+
+        if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0
+                || value.indexOf('\r') >= 0) {
+            out.write('"');
+            out.write(value.replace("\"", "\"\""));
+            out.write('"');
+        } else {
+            out.write(value);
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.cms.service;
+
+import com.cms.event.DocumentTextExtractedEvent;
+import com.cms.model.DocumentPage;
+import com.cms.model.DocumentText;
+import com.cms.repository.DocumentPageRepository;
+import com.cms.repository.DocumentTextRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Extracts PDF text once per distinct file content, on the bounded
+ * extraction pool, and stores it so viewing a contract never re-parses
+ * the PDF.
+ */
+@Service
+public class DocumentTextService {
+
+    // A PENDING row older than this is assumed to be from a crashed run and is retried
+    private static final long STALE_PENDING_MINUTES = 10;
+    private static final int MAX_PAGES_PER_REQUEST = 20;
+    private static final int MAX_HITS_PER_PAGE = 200;
+
+    @Autowired
+    private DocumentTextRepository documentTextRepository;
+
+    @Autowired
+    private TextExtractionService textExtractionService;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private PdfExtractionExecutor pdfExtractionExecutor;
+
+    @Autowired
+    private DocumentPageRepository documentPageRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private Executor taskExecutor;
+
+    public Optional<DocumentText> findByHash(String contentHash) {
+        if (contentHash == null) return Optional.empty();
+        return documentTextRepository.findByContentHash(contentHash);
+    }
+
+    /**
+     * Stored text for a hash, only once extraction succeeded.
+     */
+    public String findReadyText(String contentHash) {
+        return findByHash(contentHash)
+                .filter(d -> d.getStatus() == DocumentText.Status.READY)
+                .map(DocumentText::getText)
+                .orElse(null);
+    }
+
+    /**
+     * Stored text by hash for a batch of hashes, in one query. Hashes
+     * without finished text are left out.
+     */
+    public Map<String, String> findReadyTexts(Collection<String> contentHashes) {
+        Map<String, String> texts = new HashMap<>();
+        if (contentHashes.isEmpty()) return texts;
+        for (Object[] row : documentTextRepository.findTextsByContentHashIn(contentHashes, DocumentText.Status.READY)) {
+            texts.put((String) row[0], (String) row[1]);
+        }
+        return texts;
+    }
+
+    public boolean needsExtraction(Optional<DocumentText> existing) {
+        if (existing.isEmpty()) return true;
+        DocumentText doc = existing.get();
+        // Extracted before pages were stored: extract again to split it into pages
+        if (doc.getStatus() == DocumentText.Status.READY && doc.getPageCount() == null) return true;
+        return doc.getStatus() == DocumentText.Status.PENDING
+                && doc.getRequestedAt().isBefore(LocalDateTime.now().minusMinutes(STALE_PENDING_MINUTES));
+    }
+
+    // ── Pages ─────────────────────────────────────────────────
+
+    /**
+     * Pages fromPage..fromPage+count-1 of an extracted document. With a
+     * query, each page carries the offsets of its case-insensitive matches.
+     */
+    public PageRange getPages(DocumentText doc, int fromPage, int count, String query) {
+        int pageCount = doc.getPageCount() != null ? doc.getPageCount() : 0;
+        int first = Math.max(1, fromPage);
+        int last = Math.min(pageCount, first + Math.min(Math.max(count, 1), MAX_PAGES_PER_REQUEST) - 1);
+        if (first > last) return new PageRange(pageCount, List.of());
+
+        String term = normalizeQuery(query);
+        List<PageText> pages = new ArrayList<>();
+        for (DocumentPage page : documentPageRepository
+                .findByContentHashAndPageNumberBetweenOrderByPageNumberAsc(doc.getContentHash(), first, last)) {
+            pages.add(new PageText(page.getPageNumber(), page.getText(), findHits(page.getText(), term)));
+        }
+        return new PageRange(pageCount, pages);
+    }
+
+    /**
+     * Number of matches of the query on each page that contains it.
+     */
+    public Map<Integer, Integer> countHitsByPage(DocumentText doc, String query) {
+        String term = normalizeQuery(query);
+        Map<Integer, Integer> counts = new LinkedHashMap<>();
+        if (term == null) return counts;
+
+        String pattern = likePattern(term);
+        for (DocumentPage page : documentPageRepository.findPagesMatching(doc.getContentHash(), pattern)) {
+            counts.put(page.getPageNumber(), findHits(page.getText(), term).size());
+        }
+        return counts;
+    }
+
+    /**
+     * Text of the first page containing any of the terms, or null. Terms
+     * are lower-case words, as the search index tokenizes them.
+     */
+    public String findFirstPageMatching(String contentHash, Collection<String> terms) {
+        if (contentHash == null) return null;
+
+        Integer firstPage = null;
+        String text = null;
+        for (String term : terms) {
+            List<Object[]> rows = documentPageRepository.findPageTextsMatching(contentHash, likePattern(term),
+                    PageRequest.of(0, 1));
+            if (!rows.isEmpty() && (firstPage == null || (Integer) rows.get(0)[0] < firstPage)) {
+                firstPage = (Integer) rows.get(0)[0];
+                text = (String) rows.get(0)[1];
+            }
+        }
+        return text;
+    }
+
+    // Case-insensitive substring pattern for a lower-case term
+    private static String likePattern(String term) {
+        return "%" + term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+
+    private static String normalizeQuery(String query) {
+        if (query == null || query.isBlank()) return null;
+        return query.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static List<Integer> findHits(String text, String term) {
+        if (term == null || text == null) return List.of();
+        List<Integer> hits = new ArrayList<>();
+        String lower = text.toLowerCase(Locale.ROOT);
+        int pos = lower.indexOf(term);
+        while (pos >= 0 && hits.size() < MAX_HITS_PER_PAGE) {
+            hits.add(pos);
+            pos = lower.indexOf(term, pos + term.length());
+        }
+        return hits;
+    }
+
+    /**
+     * Extract and store the text of a stored PDF in the background. A no-op
+     * when the same content has already been extracted or is in progress.
+     * Only the PENDING row is written on the caller's thread; parsing runs
+     * on the bounded extraction pool.
+     */
+    public void requestExtraction(String fileName, String contentHash) {
+        if (fileName == null || contentHash == null || !textExtractionService.isPdf(fileName)) return;
+
+        Optional<DocumentText> existing = documentTextRepository.findByContentHash(contentHash);
+        if (!needsExtraction(existing)) return;
+
+        DocumentText pending;
+        if (existing.isPresent()) {
+            pending = existing.get();
+            pending.setStatus(DocumentText.Status.PENDING);
+            pending.setRequestedAt(LocalDateTime.now());
+            pending = documentTextRepository.save(pending);
+        } else {
+            try {
+                pending = documentTextRepository.saveAndFlush(new DocumentText(contentHash));
+            } catch (DataIntegrityViolationException e) {
+                return; // Another upload of the same content got there first
+            }
+        }
+
+        Path file;
+        try {
+            file = fileStorageService.loadFile(fileName);
+        } catch (RuntimeException e) {
+            finish(pending, null, e);
+            return;
+        }
+
+        DocumentText doc = pending;
+        // Finish on the task pool: a timeout completes the future on the shared watchdog thread
+        pdfExtractionExecutor.submit(file).whenCompleteAsync((pages, error) -> {
+            if (error instanceof RejectedExecutionException) {
+                // Pool is saturated; drop the claim so the next view asks again
+                documentTextRepository.delete(doc);
+                return;
+            }
+            finish(doc, pages, error);
+        }, taskExecutor);
+    }
+
+    private void finish(DocumentText doc, List<String> pages, Throwable error) {
+        if (error == null) {
+            transactionTemplate.executeWithoutResult(status -> {
+                documentPageRepository.deleteAllByContentHashInBulk(doc.getContentHash());
+                List<DocumentPage> rows = new ArrayList<>(pages.size());
+                for (int i = 0; i < pages.size(); i++) {
+                    rows.add(new DocumentPage(doc.getContentHash(), i + 1, pages.get(i)));
+                }
+                documentPageRepository.saveAll(rows);
+            });
+            doc.setText(String.join("", pages).trim());
+            doc.setPageCount(pages.size());
+            doc.setStatus(DocumentText.Status.READY);
+            doc.setError(null);
+        } else {
+            String message = error instanceof TimeoutException
+                    ? "Timed out: " + error.getMessage()
+                    : String.valueOf(error.getMessage());
+            doc.setStatus(DocumentText.Status.FAILED);
+            doc.setError(message.length() > 255 ? message.substring(0, 255) : message);
+        }
+        doc.setExtractedAt(LocalDateTime.now());
+        documentTextRepository.save(doc);
+
+        eventPublisher.publishEvent(new DocumentTextExtractedEvent(doc.getContentHash()));
+    }
+}
@@ -0,0 +1,184 @@
+package com.cms.service;
+
+import com.cms.event.ContractChangedEvent;
+import com.cms.model.Contract;
+import com.cms.model.Notification;
+import com.cms.model.User;
+import com.cms.repository.ContractRepository;
+import com.cms.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Background engine for contract expiry alerts.
+ *
+ * Each contract has an alert level for a given day: EXPIRED once its end
+ * date has passed, otherwise EXPIRING_SOON at the smallest threshold its
+ * remaining days fall under. A level is entered on a fixed day (the day
+ * after the end date, or end date minus the threshold), so each run only
+ * alerts for levels entered since the last run day: one end-date window
+ * per level, read in keyset chunks. Recipients that already have the
+ * alert are looked up per chunk in one query, so repeats never reach the
+ * database; the unique alert key on Notification stays as a backstop.
+ * Created or edited contracts are evaluated on their own as they change.
+ */
+@Service
+public class ExpiryAlertService {
+
+    // Days-before-end thresholds, ascending
+    private static final int[] EXPIRING_THRESHOLDS = {1, 7};
+    private static final int EXPIRED_THRESHOLD = 0;
+    // How far back the first run after startup looks for missed expiries
+    private static final int COLD_START_LOOKBACK_DAYS = 7;
+    private static final int CHUNK_SIZE = 500;
+
+    @Autowired
+    private ContractRepository contractRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    private volatile LocalDate lastRunDay;
+
+    @Scheduled(fixedRate = 3600000, initialDelay = 60000)
+    public void generateAlerts() {
+        LocalDate today = LocalDate.now();
+        if (today.equals(lastRunDay)) return; // No day boundary crossed since the last run
+
+        // Levels entered on a day in (since, today]
+        LocalDate since = lastRunDay != null ? lastRunDay : today.minusDays(COLD_START_LOOKBACK_DAYS);
+        List<User> admins = userRepository.findByRoleAndStatus(User.Role.ADMIN, User.Status.ACTIVE);
+
+        // EXPIRED is entered the day after the end date
+        alertLevel(EXPIRED_THRESHOLD, since, today.minusDays(1), today, admins);
+        // EXPIRING_SOON at t is entered t days before the end date
+        for (int threshold : EXPIRING_THRESHOLDS) {
+            alertLevel(threshold, since.plusDays(1 + threshold), today.plusDays(threshold), today, admins);
+        }
+        lastRunDay = today;
+    }
+
+    /**
+     * New or edited contracts may already be inside an alert window.
+     */
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onContractChanged(ContractChangedEvent event) {
+        if (event.getKind() == ContractChangedEvent.Kind.DELETED) return;
+
+        Contract c = event.getContract();
+        LocalDate today = LocalDate.now();
+        Integer level = levelOf(c.getEndDate(), c.getStatus(), today);
+        if (level == null) return;
+
+        Object[] row = {c.getId(), c.getTitle(), c.getEndDate(), c.getStatus(), event.getUserId()};
+        notifyChunk(Collections.singletonList(row), level, today,
+                userRepository.findByRoleAndStatus(User.Role.ADMIN, User.Status.ACTIVE));
+    }
+
+    // Contracts whose end date lies in [from, to] and whose current level is this one
+    private void alertLevel(int threshold, LocalDate from, LocalDate to, LocalDate today, List<User> admins) {
+        if (from.isAfter(to)) return;
+
+        Long afterId = 0L;
+        while (true) {
+            List<Object[]> rows = contractRepository.findAlertCandidates(from, to, afterId,
+                    PageRequest.of(0, CHUNK_SIZE));
+            List<Object[]> atLevel = new ArrayList<>();
+            for (Object[] row : rows) {
+                Integer level = levelOf((LocalDate) row[2], (Contract.Status) row[3], today);
+                // A contract already past this level is alerted from the window of its own level
+                if (level != null && level == threshold) atLevel.add(row);
+            }
+            notifyChunk(atLevel, threshold, today, admins);
+            if (rows.size() < CHUNK_SIZE) break;
+            afterId = (Long) rows.get(rows.size() - 1)[0];
+        }
+    }
+
+    /**
+     * The contract's alert level today: EXPIRED_THRESHOLD once expired, else
+     * the smallest threshold its remaining days fall under, else null.
+     */
+    private static Integer levelOf(LocalDate endDate, Contract.Status status, LocalDate today) {
+        if (endDate == null) return null;
+
+        long daysLeft = ChronoUnit.DAYS.between(today, endDate);
+        if (daysLeft < 0) return EXPIRED_THRESHOLD;
+        if (status == Contract.Status.EXPIRED) return null;
+
+        for (int threshold : EXPIRING_THRESHOLDS) {
+            if (daysLeft <= threshold) return threshold;
+        }
+        return null;
+    }
+
+    // Rows are (id, title, endDate, status, ownerId)
+    private void notifyChunk(List<Object[]> rows, int threshold, LocalDate today, List<User> admins) {
+        if (rows.isEmpty()) return;
+
+        Notification.AlertKind kind = threshold == EXPIRED_THRESHOLD
+                ? Notification.AlertKind.EXPIRED : Notification.AlertKind.EXPIRING_SOON;
+        List<Long> contractIds = new ArrayList<>(rows.size());
+        for (Object[] row : rows) contractIds.add((Long) row[0]);
+        Map<Long, Set<Long>> alerted = notificationService.findAlertRecipients(contractIds, kind, threshold);
+
+        List<Notification> pending = new ArrayList<>();
+        for (Object[] row : rows) {
+            Long contractId = (Long) row[0];
+            String title = (String) row[1];
+            LocalDate endDate = (LocalDate) row[2];
+            Long ownerId = (Long) row[4];
+            Set<Long> done = alerted.getOrDefault(contractId, Set.of());
+
+            String alertTitle;
+            String message;
+            Notification.Type type;
+            if (kind == Notification.AlertKind.EXPIRED) {
+                alertTitle = "Contract Expired";
+                message = "\"" + title + "\" expired on " + endDate;
+                type = Notification.Type.DANGER;
+            } else {
+                long daysLeft = ChronoUnit.DAYS.between(today, endDate);
+                alertTitle = "Expiring Soon";
+                message = "\"" + title + "\" expires in " + daysLeft + " day" + (daysLeft != 1 ? "s" : "");
+                type = Notification.Type.WARNING;
+            }
+
+            if (!done.contains(ownerId)) {
+                pending.add(alert(alertTitle, message, type, userRepository.getReferenceById(ownerId),
+                        contractId, kind, threshold));
+            }
+            for (User admin : admins) {
+                if (!admin.getId().equals(ownerId) && !done.contains(admin.getId())) {
+                    pending.add(alert(alertTitle, message, type, admin, contractId, kind, threshold));
+                }
+            }
+        }
+        notificationService.createAlerts(pending);
+    }
+
+    private static Notification alert(String title, String message, Notification.Type type, User user,
+                                      Long contractId, Notification.AlertKind kind, int threshold) {
+        Notification n = new Notification(title, message, type, user);
+        n.setContractId(contractId);
+        n.setAlertKind(kind);
+        n.setAlertThreshold(threshold);
+        return n;
+    }
+}
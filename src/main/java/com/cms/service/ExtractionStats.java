@@ -0,0 +1,48 @@
+package com.cms.service;
+
+/**
+ * Point-in-time counters of the PDF extraction pool.
+ */
+public class ExtractionStats {
+
+    private final int queueDepth;
+    private final int activeJobs;
+    private final long completed;
+    private final long failed;
+    private final long timedOut;
+    private final long rejected;
+    private final long averageQueueWaitMillis;
+    private final long averageRunMillis;
+    private final long maxRunMillis;
+
+    public ExtractionStats(int queueDepth, int activeJobs, long completed, long failed, long timedOut,
+                           long rejected, long averageQueueWaitMillis, long averageRunMillis, long maxRunMillis) {
+        this.queueDepth = queueDepth;
+        this.activeJobs = activeJobs;
+        this.completed = completed;
+        this.failed = failed;
+        this.timedOut = timedOut;
+        this.rejected = rejected;
+        this.averageQueueWaitMillis = averageQueueWaitMillis;
+        this.averageRunMillis = averageRunMillis;
+        this.maxRunMillis = maxRunMillis;
+    }
+
+    public int getQueueDepth() { return queueDepth; }
+
+    public int getActiveJobs() { return activeJobs; }
+
+    public long getCompleted() { return completed; }
+
+    public long getFailed() { return failed; }
+
+    public long getTimedOut() { return timedOut; }
+
+    public long getRejected() { return rejected; }
+
+    public long getAverageQueueWaitMillis() { return averageQueueWaitMillis; }
+
+    public long getAverageRunMillis() { return averageRunMillis; }
+
+    public long getMaxRunMillis() { return maxRunMillis; }
+}
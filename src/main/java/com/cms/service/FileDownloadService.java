@@ -0,0 +1,240 @@
+package com.cms.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes stored attachments to the response with HTTP caching and byte
+ * ranges. Blob names are content hashes, so a blob's bytes never change:
+ * it is cached for a year and its ETag is the hash. File bytes never pass
+ * through the heap — Tomcat's sendfile is used when the connector offers
+ * it, otherwise FileChannel.transferTo; blobs packed into segments are
+ * written straight from their memory-mapped slice.
+ */
+@Service
+public class FileDownloadService {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final int ZIP_BUFFER_SIZE = 64 * 1024;
+
+    private static final String IMMUTABLE = "private, max-age=31536000, immutable";
+    private static final String REVALIDATE = "private, no-cache";
+
+    // parseRange result for a range that starts past the end of the file
+    private static final long[] UNSATISFIABLE = new long[0];
+
+    public void send(BlobContent content, String fileName, String contentType, String downloadName,
+                     HttpServletRequest request, HttpServletResponse response) throws IOException {
+        boolean immutable = FileStorageService.isBlobName(fileName);
+        String etag = immutable ? "\"" + fileName.substring(0, fileName.indexOf('.')) + "\"" : null;
+        write(content, etag, contentType, ContentDisposition.attachment()
+                .filename(downloadName, StandardCharsets.UTF_8).build(), request, response);
+    }
+
+    /**
+     * Serves a file derived deterministically from content (a thumbnail or
+     * preview) inline, cached as immutable under the given key.
+     */
+    public void sendDerived(Path file, String key, String contentType,
+                            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        write(BlobContent.ofFile(file), "\"" + key + "\"", contentType, ContentDisposition.inline().build(), request, response);
+    }
+
+    /**
+     * Streams a ZIP of several stored files (entry name to content) straight
+     * into the response, one copy buffer at a time, so memory use does not
+     * grow with the number or size of files. PDFs and images are already
+     * compressed and go in STORED; a STORED entry needs its CRC before its
+     * data, which costs one extra sequential read of that file.
+     */
+    public void sendZip(Map<String, BlobContent> entries, String zipName, HttpServletResponse response)
+            throws IOException {
+        response.setContentType("application/zip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(zipName, StandardCharsets.UTF_8).build().toString());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-store");
+
+        byte[] buffer = new byte[ZIP_BUFFER_SIZE];
+        ZipOutputStream zip = new ZipOutputStream(response.getOutputStream());
+        for (Map.Entry<String, BlobContent> e : entries.entrySet()) {
+            BlobContent content = e.getValue();
+            ZipEntry entry = new ZipEntry(e.getKey());
+            entry.setTime(content.getLastModified());
+            if (isCompressed(e.getKey())) {
+                entry.setMethod(ZipEntry.STORED);
+                entry.setSize(content.getSize());
+                entry.setCompressedSize(content.getSize());
+                entry.setCrc(crc32(content, buffer));
+            }
+
+            zip.putNextEntry(entry);
+            try (InputStream in = content.openStream()) {
+                int n;
+                while ((n = in.read(buffer)) > 0) {
+                    zip.write(buffer, 0, n);
+                }
+            }
+            zip.closeEntry();
+        }
+        // Finish but leave the servlet stream to the container
+        zip.finish();
+        zip.flush();
+    }
+
+    private static boolean isCompressed(String name) {
+        String lower = name.toLowerCase();
+        return lower.endsWith(".pdf") || lower.endsWith(".jpg") || lower.endsWith(".jpeg") || lower.endsWith(".png");
+    }
+
+    private static long crc32(BlobContent content, byte[] buffer) throws IOException {
+        CRC32 crc = new CRC32();
+        try (InputStream in = content.openStream()) {
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                crc.update(buffer, 0, n);
+            }
+        }
+        return crc.getValue();
+    }
+
+    // A null strongEtag means the content may change: weak ETag and revalidation
+    private void write(BlobContent content, String strongEtag, String contentType, ContentDisposition disposition,
+                       HttpServletRequest request, HttpServletResponse response) throws IOException {
+        long length = content.getSize();
+        long lastModified = content.getLastModified();
+        String etag = strongEtag != null
+                ? strongEtag
+                : "W/\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, strongEtag != null ? IMMUTABLE : REVALIDATE);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (notModified(request, etag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        response.setContentType(contentType);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, disposition.toString());
+
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && ifRangeMatches(request, etag, lastModified)) {
+            long[] parsed = parseRange(range, length);
+            if (parsed == UNSATISFIABLE) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (parsed != null) {
+                start = parsed[0];
+                end = parsed[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if (count <= 0 || "HEAD".equals(request.getMethod())) return;
+
+        if (content.getPath() != null && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat writes the file from the socket poller after this request returns
+            request.setAttribute(SENDFILE_FILENAME, content.getPath().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        content.transferTo(start, count, Channels.newChannel(response.getOutputStream()));
+    }
+
+    // ── Conditional requests ──────────────────────────────────
+    private boolean notModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            for (String tag : ifNoneMatch.split(",")) {
+                tag = tag.trim();
+                if (tag.equals("*") || weakTag(tag).equals(weakTag(etag))) return true;
+            }
+            return false;
+        }
+        long since = dateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+        return since >= 0 && lastModified / 1000 <= since / 1000;
+    }
+
+    // A Range only applies if the client's copy is still current
+    private boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) return true;
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return !etag.startsWith("W/") && ifRange.trim().equals(etag);
+        }
+        long date = dateHeader(request, HttpHeaders.IF_RANGE);
+        return date >= 0 && lastModified / 1000 == date / 1000;
+    }
+
+    private static String weakTag(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+    private static long dateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Parses a single "bytes=" range into inclusive [start, end]. Returns
+     * null when the header should be ignored (malformed, or several ranges,
+     * which are answered with the whole file).
+     */
+    private static long[] parseRange(String header, long length) {
+        if (!header.startsWith("bytes=")) return null;
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (spec.contains(",") || dash < 0) return null;
+
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                // Suffix range: the final N bytes
+                if (last.isEmpty()) return null;
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0 || length == 0) return UNSATISFIABLE;
+                return new long[]{Math.max(0, length - suffix), length - 1};
+            }
+
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? length - 1 : Long.parseLong(last);
+            if (start < 0 || end < start) return null;
+            if (start >= length) return UNSATISFIABLE;
+            return new long[]{start, Math.min(end, length - 1)};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
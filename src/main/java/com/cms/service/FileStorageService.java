@@ -1,76 +1,222 @@
 package com.cms.service;
 
+import com.cms.event.ContractsDeletedEvent;
+import com.cms.repository.AttachmentRepository;
+import com.cms.repository.ContractRepository;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
-import java.util.List;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.regex.Pattern;
 
 @Service
 public class FileStorageService {
 
     private static final String UPLOAD_DIR = "uploads";
     private static final long MAX_FILE_SIZE = 5 * 1024 * 1024; // 5 MB
-    private static final List<String> ALLOWED_TYPES = List.of(
-            "application/pdf",
-            "image/jpeg",
-            "image/png"
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private static final int SNIFF_LENGTH = 8;
+    private static final byte[] PDF_MAGIC = {'%', 'P', 'D', 'F', '-'};
+    private static final byte[] PNG_MAGIC = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] JPEG_MAGIC = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+    private static final Map<String, String> EXTENSIONS = Map.of(
+            "application/pdf", ".pdf",
+            "image/jpeg", ".jpg",
+            "image/png", ".png"
     );
+    private static final Pattern BLOB_NAME = Pattern.compile("[0-9a-f]{64}\\.[a-z0-9]+");
+    // Blobs written or re-uploaded this recently are never released (see storeFile)
+    private static final Duration RELEASE_GRACE = Duration.ofMinutes(10);
+
+    @Autowired
+    private ContractRepository contractRepository;
+
+    @Autowired
+    private AttachmentRepository attachmentRepository;
+
+    @Autowired
+    private SegmentBlobStore segmentStore;
+
+    // Striped locks ordering store and release of the same blob
+    private final Object[] locks = new Object[64];
+    {
+        for (int i = 0; i < locks.length; i++) locks[i] = new Object();
+    }
 
     /**
-     * Store a file on disk and return the generated unique filename.
+     * Store an upload in the content-addressed store and return its blob
+     * name (SHA-256 of the content plus extension) with the hash.
+     * Identical content is kept once: a re-upload only touches the blob.
+     *
+     * The upload is read exactly once: the type is sniffed from its first
+     * bytes, and the size limit, hash and write to a temp file beside the
+     * blobs all happen in the same pass, finished by an atomic rename.
      */
-    public String storeFile(MultipartFile file) throws IOException {
+    public StoredFile storeFile(MultipartFile file) throws IOException {
         // Validate not empty
         if (file == null || file.isEmpty()) {
             throw new IllegalArgumentException("File is empty. Please select a file to upload.");
         }
 
-        // Validate size
+        // Reject early when the declared size is already too large
         if (file.getSize() > MAX_FILE_SIZE) {
             throw new IllegalArgumentException("File size exceeds the maximum limit of 5 MB.");
         }
 
-        // Validate content type
-        String contentType = file.getContentType();
-        if (contentType == null || !ALLOWED_TYPES.contains(contentType)) {
-            throw new IllegalArgumentException("Invalid file type. Only PDF, JPG, and PNG are allowed.");
-        }
-
         // Sanitize original filename (remove path traversal chars)
         String originalName = file.getOriginalFilename();
         if (originalName == null) originalName = "file";
         originalName = Paths.get(originalName).getFileName().toString(); // strip path
         originalName = originalName.replaceAll("[^a-zA-Z0-9.\\-_]", "_"); // sanitize
 
-        // Generate unique filename
-        String uniqueName = System.currentTimeMillis() + "_" + originalName;
-
         // Create upload directory if needed
         Path uploadPath = Paths.get(UPLOAD_DIR);
         if (!Files.exists(uploadPath)) {
             Files.createDirectories(uploadPath);
         }
 
-        // Save file
-        Path targetPath = uploadPath.resolve(uniqueName);
-        Files.copy(file.getInputStream(), targetPath, StandardCopyOption.REPLACE_EXISTING);
+        try (InputStream in = new BufferedInputStream(file.getInputStream(), COPY_BUFFER_SIZE)) {
+            // Detect the real type from magic bytes; the client's Content-Type is not trusted
+            in.mark(SNIFF_LENGTH);
+            String contentType = sniffContentType(in.readNBytes(SNIFF_LENGTH));
+            in.reset();
+            if (contentType == null) {
+                throw new IllegalArgumentException("Invalid file type. Only PDF, JPG, and PNG are allowed.");
+            }
+
+            Path tempPath = Files.createTempFile(uploadPath, "upload-", ".tmp");
+            try {
+                MessageDigest digest = sha256();
+                long size;
+                try (OutputStream out = Files.newOutputStream(tempPath)) {
+                    size = copyHashed(in, out, digest, MAX_FILE_SIZE);
+                }
+                if (size < 0) {
+                    throw new IllegalArgumentException("File size exceeds the maximum limit of 5 MB.");
+                }
+
+                String hash = HexFormat.of().formatHex(digest.digest());
+                String blobName = hash + EXTENSIONS.get(contentType);
+                putBlob(tempPath, blobName);
+                return new StoredFile(blobName, originalName, hash, size);
+            } finally {
+                Files.deleteIfExists(tempPath);
+            }
+        }
+    }
+
+    /**
+     * Copies while hashing. Returns the byte count, or -1 as soon as more
+     * than limit bytes have been read.
+     */
+    private static long copyHashed(InputStream in, OutputStream out, MessageDigest digest, long limit)
+            throws IOException {
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        long total = 0;
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            total += n;
+            if (total > limit) return -1;
+            digest.update(buffer, 0, n);
+            out.write(buffer, 0, n);
+        }
+        return total;
+    }
+
+    static String sniffContentType(byte[] head) {
+        if (startsWith(head, PDF_MAGIC)) return "application/pdf";
+        if (startsWith(head, PNG_MAGIC)) return "image/png";
+        if (startsWith(head, JPEG_MAGIC)) return "image/jpeg";
+        return null;
+    }
+
+    private static boolean startsWith(byte[] data, byte[] prefix) {
+        if (data.length < prefix.length) return false;
+        for (int i = 0; i < prefix.length; i++) {
+            if (data[i] != prefix[i]) return false;
+        }
+        return true;
+    }
+
+    // Caller's temp file must be inside UPLOAD_DIR so the final move is atomic
+    private void putBlob(Path tempPath, String blobName) throws IOException {
+        Path blobPath = shardedPath(blobName);
+        synchronized (lockFor(blobName)) {
+            if (Files.exists(blobPath)) {
+                // Already stored; refresh so a concurrent release keeps it
+                Files.setLastModifiedTime(blobPath, FileTime.from(Instant.now()));
+            } else if (segmentStore.contains(blobName) || segmentStore.accepts(blobName, Files.size(tempPath))) {
+                // Small blobs are packed into segment files; put only touches an existing one
+                segmentStore.put(blobName, tempPath);
+            } else {
+                Files.createDirectories(blobPath.getParent());
+                Files.move(tempPath, blobPath, StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+    }
+
+    /**
+     * Content of a stored file, wherever it lives: packed in a segment, in
+     * its shard directory or in the flat upload directory.
+     */
+    public BlobContent openBlob(String fileName) throws IOException {
+        String sanitized = Paths.get(fileName).getFileName().toString();
+        BlobContent packed = segmentStore.open(sanitized);
+        if (packed != null) return packed;
+        return BlobContent.ofFile(loadFile(sanitized));
+    }
+
+    /**
+     * SHA-256 of an already stored file (for attachments uploaded before hashes were recorded).
+     */
+    public String hashFile(String fileName) throws IOException {
+        MessageDigest digest = sha256();
+        try (InputStream in = new DigestInputStream(openBlob(fileName).openStream(), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
 
-        return uniqueName;
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 
     /**
-     * Load a file as a Path, with path traversal protection.
+     * Load a file as a Path, with path traversal protection. Blobs are
+     * looked up in their shard directory first and then in the flat
+     * upload directory, where files from before sharding still live.
+     * Blobs packed into segments have no path; read those with openBlob.
      */
     public Path loadFile(String fileName) {
         // Prevent path traversal
         String sanitized = Paths.get(fileName).getFileName().toString();
-        Path filePath = Paths.get(UPLOAD_DIR).resolve(sanitized).normalize();
 
+        Path filePath = shardedPath(sanitized);
+        if (!Files.exists(filePath)) {
+            filePath = flatPath(sanitized);
+        }
         if (!Files.exists(filePath)) {
             throw new RuntimeException("File not found: " + sanitized);
         }
@@ -79,16 +225,183 @@ public class FileStorageService {
     }
 
     /**
-     * Delete a file from uploads directory.
+     * Blobs live two hash-prefix levels deep (uploads/ab/cd/abcd….pdf) so no
+     * directory grows past a few thousand entries. Names that are not blob
+     * names (uploads from before content addressing) stay flat.
+     */
+    static Path shardedPath(String fileName) {
+        if (!isBlobName(fileName)) return flatPath(fileName);
+        return Paths.get(UPLOAD_DIR, fileName.substring(0, 2), fileName.substring(2, 4), fileName).normalize();
+    }
+
+    /**
+     * Location of a file derived from a blob's content (e.g. a thumbnail),
+     * kept in the blob's shard directory as <hash>.<variant>.jpg.
+     */
+    public Path renditionPath(String contentHash, String variant) {
+        return Paths.get(UPLOAD_DIR, contentHash.substring(0, 2), contentHash.substring(2, 4),
+                contentHash + "." + variant + ".jpg").normalize();
+    }
+
+    private static Path flatPath(String fileName) {
+        return Paths.get(UPLOAD_DIR).resolve(fileName).normalize();
+    }
+
+    static boolean isBlobName(String fileName) {
+        return BLOB_NAME.matcher(fileName).matches();
+    }
+
+    // ── Migration to the sharded layout ───────────────────────
+
+    /**
+     * Whether a stored file still sits in the flat upload directory.
+     */
+    public boolean needsMigration(String fileName) {
+        String sanitized = Paths.get(fileName).getFileName().toString();
+        return !isBlobName(sanitized)
+                || (!Files.exists(shardedPath(sanitized)) && !segmentStore.contains(sanitized));
+    }
+
+    /**
+     * Copy a flat file into its shard directory under its blob name and
+     * return that name. The flat copy is left in place so readers holding
+     * the old name keep working; remove it with {@link #removeFlatFile}
+     * once nothing refers to the old name. Returns null if the file is gone.
+     */
+    public StoredFile copyToShardedLayout(String fileName) throws IOException {
+        String sanitized = Paths.get(fileName).getFileName().toString();
+        Path source = flatPath(sanitized);
+        if (!Files.exists(source)) return null;
+
+        Path tempPath = Files.createTempFile(Paths.get(UPLOAD_DIR), "migrate-", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            long size;
+            try (InputStream in = new DigestInputStream(Files.newInputStream(source), digest)) {
+                size = Files.copy(in, tempPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            String blobName = isBlobName(sanitized) ? sanitized : hash + extensionOf(sanitized);
+            putBlob(tempPath, blobName);
+            return new StoredFile(blobName, legacyOriginalName(sanitized), hash, size);
+        } finally {
+            Files.deleteIfExists(tempPath);
+        }
+    }
+
+    public void removeFlatFile(String fileName) {
+        String sanitized = Paths.get(fileName).getFileName().toString();
+        try {
+            Files.deleteIfExists(flatPath(sanitized));
+        } catch (IOException e) {
+            System.err.println("Could not remove migrated file " + sanitized + ": " + e.getMessage());
+        }
+    }
+
+    private static String extensionOf(String fileName) {
+        String lower = fileName.toLowerCase();
+        if (lower.endsWith(".jpeg")) return ".jpg";
+        int dot = lower.lastIndexOf('.');
+        return dot >= 0 ? lower.substring(dot) : "";
+    }
+
+    // Old uploads were named "<millis>_<original name>"
+    private static String legacyOriginalName(String fileName) {
+        int sep = fileName.indexOf('_');
+        if (sep > 0 && fileName.substring(0, sep).chars().allMatch(Character::isDigit)) {
+            return fileName.substring(sep + 1);
+        }
+        return fileName;
+    }
+
+    /**
+     * Drop one contract's reference to a stored file. The blob is deleted
+     * once no contract or attachment refers to it any more. Call after the referencing
+     * row has been deleted or repointed.
      */
-    public void deleteFile(String fileName) {
+    public void releaseFile(String fileName) {
         if (fileName == null || fileName.isBlank()) return;
         try {
-            String sanitized = Paths.get(fileName).getFileName().toString();
-            Path filePath = Paths.get(UPLOAD_DIR).resolve(sanitized);
-            Files.deleteIfExists(filePath);
+            reclaimIfUnreferenced(fileName, RELEASE_GRACE, null);
         } catch (IOException e) {
-            // Log but don't fail — file may already be deleted
+            // Left for the orphan collector to retry
+            System.err.println("Could not release attachment " + fileName + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Remove a stored file if no contract refers to it and it has not been
+     * written or re-uploaded within minAge (touched moments ago by an
+     * upload whose contract is not saved yet). With a quarantine directory
+     * the content is moved there instead of deleted. Returns the number of
+     * bytes taken out of the store, 0 if the file was kept or is gone.
+     */
+    public long reclaimIfUnreferenced(String fileName, Duration minAge, Path quarantineDir) throws IOException {
+        String sanitized = Paths.get(fileName).getFileName().toString();
+        Instant cutoff = Instant.now().minus(minAge);
+
+        synchronized (lockFor(sanitized)) {
+            if (isReferenced(sanitized)) return 0;
+
+            long reclaimed = 0;
+            Path filePath = shardedPath(sanitized);
+            if (Files.exists(filePath)) {
+                if (Files.getLastModifiedTime(filePath).toInstant().isAfter(cutoff)) return 0;
+                reclaimed = Files.size(filePath);
+                if (quarantineDir != null) {
+                    Files.createDirectories(quarantineDir);
+                    Path target = quarantineDir.resolve(sanitized);
+                    Files.move(filePath, target, StandardCopyOption.REPLACE_EXISTING);
+                    // Quarantine retention counts from now, not from the upload
+                    Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+                } else {
+                    Files.delete(filePath);
+                }
+            } else if (segmentStore.contains(sanitized)) {
+                BlobContent packed = segmentStore.open(sanitized);
+                if (packed.getLastModified() > cutoff.toEpochMilli()) return 0;
+                reclaimed = packed.getSize();
+                if (quarantineDir != null) {
+                    Files.createDirectories(quarantineDir);
+                    try (InputStream in = packed.openStream()) {
+                        Files.copy(in, quarantineDir.resolve(sanitized), StandardCopyOption.REPLACE_EXISTING);
+                    }
+                }
+                segmentStore.delete(sanitized);
+            } else {
+                return 0;
+            }
+
+            if (isBlobName(sanitized)) {
+                deleteRenditions(sanitized.substring(0, sanitized.indexOf('.')));
+            }
+            // A blob-named copy left behind in the flat directory by an interrupted migration
+            Files.deleteIfExists(flatPath(sanitized));
+            return reclaimed;
+        }
+    }
+
+    // Named by a contract's main document or by one of its further attachments
+    private boolean isReferenced(String blobName) {
+        return contractRepository.countByFileName(blobName) > 0 || attachmentRepository.countByFileName(blobName) > 0;
+    }
+
+    private void deleteRenditions(String contentHash) throws IOException {
+        for (RenditionService.Size size : RenditionService.Size.values()) {
+            Files.deleteIfExists(renditionPath(contentHash, size.variant()));
         }
+        Files.deleteIfExists(renditionPath(contentHash, RenditionService.FAILED_MARKER));
+    }
+
+    /**
+     * Releases the files of deleted contracts once the delete has committed.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onContractsDeleted(ContractsDeletedEvent event) {
+        new LinkedHashSet<>(event.getFileNames()).forEach(this::releaseFile);
+    }
+
+    private Object lockFor(String blobName) {
+        return locks[Math.floorMod(blobName.hashCode(), locks.length)];
     }
 }
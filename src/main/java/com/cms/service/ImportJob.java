@@ -0,0 +1,69 @@
+package com.cms.service;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+/**
+ * Progress of one bulk contract import. Counters are written by the
+ * import thread and read by the status page.
+ */
+public class ImportJob {
+
+    public enum Status {
+        QUEUED, RUNNING, DONE, FAILED
+    }
+
+    private final String id;
+    private final Long userId;
+    private final String fileName;
+    private final Path upload;
+    private final Path errorReport;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile long rowsRead;
+    private volatile long imported;
+    private volatile long rejected;
+    private volatile String message;
+    private volatile LocalDateTime finishedAt;
+
+    ImportJob(String id, Long userId, String fileName, Path upload, Path errorReport) {
+        this.id = id;
+        this.userId = userId;
+        this.fileName = fileName;
+        this.upload = upload;
+        this.errorReport = errorReport;
+    }
+
+    public String getId() { return id; }
+
+    public Long getUserId() { return userId; }
+
+    public String getFileName() { return fileName; }
+
+    Path getUpload() { return upload; }
+
+    Path getErrorReport() { return errorReport; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+
+    public Status getStatus() { return status; }
+    void setStatus(Status status) { this.status = status; }
+
+    public boolean isFinished() { return status == Status.DONE || status == Status.FAILED; }
+
+    public long getRowsRead() { return rowsRead; }
+    void setRowsRead(long rowsRead) { this.rowsRead = rowsRead; }
+
+    public long getImported() { return imported; }
+    void setImported(long imported) { this.imported = imported; }
+
+    public long getRejected() { return rejected; }
+    void setRejected(long rejected) { this.rejected = rejected; }
+
+    public String getMessage() { return message; }
+    void setMessage(String message) { this.message = message; }
+
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    void setFinishedAt(LocalDateTime finishedAt) { this.finishedAt = finishedAt; }
+}
@@ -0,0 +1,26 @@
+package com.cms.service;
+
+import com.cms.model.Notification;
+
+import java.util.List;
+
+/**
+ * One keyset page of the notification inbox. nextCursor encodes the
+ * (createdAt, id) of the last row and is null on the last page.
+ */
+public class NotificationPage {
+
+    private final List<Notification> notifications;
+    private final String nextCursor;
+
+    public NotificationPage(List<Notification> notifications, String nextCursor) {
+        this.notifications = notifications;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Notification> getNotifications() { return notifications; }
+
+    public String getNextCursor() { return nextCursor; }
+
+    public boolean hasNext() { return nextCursor != null; }
+}
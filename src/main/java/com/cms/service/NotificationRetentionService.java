@@ -0,0 +1,79 @@
+package com.cms.service;
+
+import com.cms.repository.ArchivedNotificationRepository;
+import com.cms.repository.NotificationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the notifications table small by moving old read notifications to
+ * notifications_archive. Each batch is copied and deleted in its own short
+ * transaction so the job never holds locks on the inbox for long. Batches
+ * seek forward on (created_at, id) along idx_notifications_archivable, so
+ * no batch rescans rows an earlier one has passed. Unread notifications
+ * are never archived, so unread counts are unaffected. Contract alerts
+ * stay too: their rows are what stops an alert from being sent twice.
+ */
+@Service
+public class NotificationRetentionService {
+
+    private static final int BATCH_SIZE = 1000;
+
+    @Value("${cms.notifications.retention-days:90}")
+    private int retentionDays;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private ArchivedNotificationRepository archivedNotificationRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Scheduled(cron = "0 30 3 * * *")
+    public void archiveOldNotifications() {
+        int archived = archiveReadBefore(LocalDateTime.now().minusDays(retentionDays));
+        if (archived > 0) {
+            System.out.println("Archived " + archived + " read notification(s)");
+        }
+    }
+
+    /**
+     * Archives read notifications, other than contract alerts, created
+     * before the cutoff. Returns the number moved.
+     */
+    public int archiveReadBefore(LocalDateTime cutoff) {
+        int total = 0;
+        LocalDateTime afterCreatedAt = LocalDateTime.of(1970, 1, 1, 0, 0);
+        Long afterId = 0L;
+        while (true) {
+            List<Object[]> rows = notificationRepository.findArchivableAfter(cutoff, afterCreatedAt, afterId,
+                    PageRequest.of(0, BATCH_SIZE));
+            if (rows.isEmpty()) break;
+
+            List<Long> ids = new ArrayList<>(rows.size());
+            for (Object[] row : rows) ids.add((Long) row[0]);
+            Object[] last = rows.get(rows.size() - 1);
+            afterCreatedAt = (LocalDateTime) last[1];
+            afterId = (Long) last[0];
+
+            LocalDateTime now = LocalDateTime.now();
+            Integer moved = transactionTemplate.execute(status -> {
+                archivedNotificationRepository.copyFromNotifications(ids, now);
+                return notificationRepository.deleteAllByIdInBulk(ids);
+            });
+            total += moved != null ? moved : 0;
+            if (ids.size() < BATCH_SIZE) break;
+        }
+        return total;
+    }
+}
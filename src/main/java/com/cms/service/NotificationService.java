@@ -1,58 +1,132 @@
 package com.cms.service;
 
-import com.cms.model.Contract;
 import com.cms.model.Notification;
 import com.cms.model.User;
-import com.cms.repository.ContractRepository;
 import com.cms.repository.NotificationRepository;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-
-import java.time.LocalDate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class NotificationService {
 
+    public static final int PAGE_SIZE = 30;
+
     @Autowired
     private NotificationRepository notificationRepository;
 
     @Autowired
-    private ContractRepository contractRepository;
+    private UnreadCountCache unreadCountCache;
+
+    @Autowired
+    private NotificationStreamService notificationStreamService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Alert batches commit on their own, also when called after another transaction's commit
+    private TransactionTemplate alertTransaction;
+
+    @PostConstruct
+    void init() {
+        alertTransaction = new TransactionTemplate(transactionManager);
+        alertTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
 
     // ── Fetch ─────────────────────────────────────────────────
     public List<Notification> getNotificationsForUser(User user) {
         return notificationRepository.findByUserIdOrderByCreatedAtDesc(user.getId());
     }
 
+    /**
+     * One inbox page, newest first. The cursor is the "createdAt_id" of the
+     * last row on the previous page, so deep pages cost the same as the first.
+     * An unparsable cursor starts over from the newest notification.
+     */
+    public NotificationPage getInboxPage(User user, String cursor) {
+        List<Notification> rows = null;
+        int sep = cursor != null ? cursor.lastIndexOf('_') : -1;
+        if (sep > 0) {
+            try {
+                LocalDateTime createdAt = LocalDateTime.parse(cursor.substring(0, sep));
+                Long id = Long.parseLong(cursor.substring(sep + 1));
+                rows = notificationRepository.findPageBefore(user.getId(), createdAt, id,
+                        PageRequest.of(0, PAGE_SIZE + 1));
+            } catch (DateTimeParseException | NumberFormatException e) {
+                rows = null;
+            }
+        }
+        if (rows == null) {
+            rows = notificationRepository.findByUserIdOrderByCreatedAtDescIdDesc(user.getId(),
+                    Limit.of(PAGE_SIZE + 1));
+        }
+
+        String nextCursor = null;
+        if (rows.size() > PAGE_SIZE) {
+            rows = new ArrayList<>(rows.subList(0, PAGE_SIZE));
+            Notification last = rows.get(PAGE_SIZE - 1);
+            nextCursor = last.getCreatedAt() + "_" + last.getId();
+        }
+        return new NotificationPage(rows, nextCursor);
+    }
+
     public List<Notification> getUnreadNotifications(User user) {
         return notificationRepository.findByUserIdAndReadFalseOrderByCreatedAtDesc(user.getId());
     }
 
     public long getUnreadCount(User user) {
-        return notificationRepository.countByUserIdAndReadFalse(user.getId());
+        return unreadCountCache.get(user.getId());
     }
 
     // ── Actions ───────────────────────────────────────────────
     public void markAsRead(Long notificationId, User user) {
         notificationRepository.findById(notificationId).ifPresent(n -> {
-            if (n.getUser().getId().equals(user.getId())) {
+            if (n.getUser().getId().equals(user.getId()) && !n.isRead()) {
                 n.setRead(true);
                 notificationRepository.save(n);
+                unreadCountCache.decrement(user.getId());
+                notificationStreamService.publishUnreadCount(user.getId());
             }
         });
     }
 
-    public void markAllAsRead(User user) {
-        List<Notification> unread = notificationRepository.findByUserIdAndReadFalseOrderByCreatedAtDesc(user.getId());
-        unread.forEach(n -> n.setRead(true));
-        notificationRepository.saveAll(unread);
+    /**
+     * Marks every unread notification of the user as read with one UPDATE.
+     * Returns the number of notifications changed.
+     */
+    public int markAllAsRead(User user) {
+        int updated = notificationRepository.markAllReadByUserId(user.getId());
+        if (updated > 0) {
+            unreadCountCache.evict(user.getId());
+            notificationStreamService.publishUnreadCount(user.getId());
+        }
+        return updated;
     }
 
     public void deleteNotification(Long id, User user) {
         notificationRepository.findById(id).ifPresent(n -> {
             if (n.getUser().getId().equals(user.getId())) {
                 notificationRepository.delete(n);
+                if (!n.isRead()) {
+                    unreadCountCache.decrement(user.getId());
+                    notificationStreamService.publishUnreadCount(user.getId());
+                }
             }
         });
     }
@@ -61,49 +135,78 @@ public class NotificationService {
     public void createNotification(String title, String message, Notification.Type type, User user) {
         Notification n = new Notification(title, message, type, user);
         notificationRepository.save(n);
+        unreadCountCache.increment(user.getId());
+        notificationStreamService.publishNotification(n);
+        notificationStreamService.publishUnreadCount(user.getId());
     }
 
-    // ── Auto-generate expiry warnings ─────────────────────────
-    public void checkAndGenerateExpiryAlerts(User user) {
-        LocalDate today = LocalDate.now();
-        LocalDate weekFromNow = today.plusDays(7);
-
-        List<Contract> contracts;
-        if (user.getRole() == User.Role.ADMIN) {
-            contracts = contractRepository.findAll();
-        } else {
-            contracts = contractRepository.findByUserId(user.getId());
+    /**
+     * Users who already have the given alert, by contract id, in one query.
+     */
+    public Map<Long, Set<Long>> findAlertRecipients(Collection<Long> contractIds, Notification.AlertKind kind,
+                                                    int threshold) {
+        Map<Long, Set<Long>> recipients = new HashMap<>();
+        if (contractIds.isEmpty()) return recipients;
+        for (Object[] row : notificationRepository.findAlertRecipients(contractIds, kind, threshold)) {
+            recipients.computeIfAbsent((Long) row[0], k -> new HashSet<>()).add((Long) row[1]);
         }
+        return recipients;
+    }
 
-        for (Contract contract : contracts) {
-            if (contract.getStatus() == Contract.Status.EXPIRED) continue;
-
-            // Already expired but not marked
-            if (contract.getEndDate().isBefore(today)) {
-                // Auto-update status to EXPIRED
-                contract.setStatus(Contract.Status.EXPIRED);
-                contractRepository.save(contract);
+    /**
+     * Create a contract alert unless the same (user, contract, kind, threshold)
+     * already exists. The unique key rejects duplicates in the database, so no
+     * history scan is needed. Returns true if a new notification was stored.
+     */
+    public boolean createAlert(String title, String message, Notification.Type type, User user,
+                               Long contractId, Notification.AlertKind kind, int threshold) {
+        Notification n = new Notification(title, message, type, user);
+        n.setContractId(contractId);
+        n.setAlertKind(kind);
+        n.setAlertThreshold(threshold);
+        try {
+            // Ids no longer come from the INSERT, so flush to hit the unique key here
+            notificationRepository.saveAndFlush(n);
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+        unreadCountCache.increment(user.getId());
+        notificationStreamService.publishNotification(n);
+        notificationStreamService.publishUnreadCount(user.getId());
+        return true;
+    }
 
-                String title = "Contract Expired";
-                String message = "\"" + contract.getTitle() + "\" expired on " + contract.getEndDate();
-                if (!isDuplicateNotification(user, title, message)) {
-                    createNotification(title, message, Notification.Type.DANGER, user);
-                }
-            }
-            // Expiring within 7 days
-            else if (!contract.getEndDate().isAfter(weekFromNow)) {
-                long daysLeft = java.time.temporal.ChronoUnit.DAYS.between(today, contract.getEndDate());
-                String title = "Expiring Soon";
-                String message = "\"" + contract.getTitle() + "\" expires in " + daysLeft + " day" + (daysLeft != 1 ? "s" : "");
-                if (!isDuplicateNotification(user, title, message)) {
-                    createNotification(title, message, Notification.Type.WARNING, user);
+    /**
+     * Stores a chunk of contract alerts with batched inserts in one
+     * transaction. Callers pre-check existing recipients, so a duplicate
+     * only means a concurrent run got there first; the chunk then falls
+     * back to createAlert per alert. Returns the number stored.
+     */
+    public int createAlerts(List<Notification> alerts) {
+        if (alerts.isEmpty()) return 0;
+
+        try {
+            alertTransaction.executeWithoutResult(status -> notificationRepository.saveAll(alerts));
+        } catch (DataIntegrityViolationException e) {
+            int stored = 0;
+            for (Notification n : alerts) {
+                if (createAlert(n.getTitle(), n.getMessage(), n.getType(), n.getUser(), n.getContractId(),
+                        n.getAlertKind(), n.getAlertThreshold())) {
+                    stored++;
                 }
             }
+            return stored;
         }
-    }
 
-    private boolean isDuplicateNotification(User user, String title, String message) {
-        return notificationRepository.findByUserIdOrderByCreatedAtDesc(user.getId()).stream()
-                .anyMatch(n -> n.getTitle().equals(title) && n.getMessage().equals(message));
+        Set<Long> userIds = new HashSet<>();
+        for (Notification n : alerts) {
+            unreadCountCache.increment(n.getUser().getId());
+            notificationStreamService.publishNotification(n);
+            userIds.add(n.getUser().getId());
+        }
+        for (Long userId : userIds) {
+            notificationStreamService.publishUnreadCount(userId);
+        }
+        return alerts.size();
     }
 }
@@ -0,0 +1,239 @@
+package com.cms.service;
+
+import com.cms.model.Notification;
+import com.cms.model.User;
+import com.cms.repository.NotificationRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Live notification push over server-sent events.
+ *
+ * Connections are async servlet requests, so an idle subscriber holds no
+ * thread. Callers only enqueue: each connection has its own bounded queue,
+ * drained by at most one sender thread at a time. Senders are pooled but
+ * not capped, so a client whose write blocks holds only its own thread,
+ * and only until the connector's write timeout fails the write. A client
+ * whose queue overflows or whose write stalls is disconnected.
+ *
+ * Only the client's sender touches the emitter: send and complete lock
+ * the emitter, and a write stuck on a stalled socket holds that lock, so
+ * any other thread calling into it would hang with it. Notification
+ * events carry the notification id as the SSE id, so the reconnecting
+ * browser's Last-Event-ID replays anything it missed.
+ */
+@Service
+public class NotificationStreamService {
+
+    private static final long EMITTER_TIMEOUT = 30 * 60 * 1000L; // browsers reconnect on their own
+    private static final int REPLAY_LIMIT = 100;
+    // Events waiting for one connection before it counts as too slow
+    private static final int MAX_PENDING_EVENTS = 200;
+    // A single write blocked this long marks the connection as stalled
+    private static final long SEND_TIMEOUT_MILLIS = 10_000;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private UnreadCountCache unreadCountCache;
+
+    private final Map<Long, Set<Client>> clients = new ConcurrentHashMap<>();
+
+    // Threads are only added while writes are blocked; idle ones exit after a minute
+    private final ExecutorService senders = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "sse-sender");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // One open stream and the events still to be written to it
+    private static class Client {
+        final Long userId;
+        final SseEmitter emitter;
+        final Queue<SseEmitter.SseEventBuilder> pending = new ConcurrentLinkedQueue<>();
+        final AtomicInteger pendingCount = new AtomicInteger();
+        final AtomicBoolean draining = new AtomicBoolean();
+        volatile long sendStartedAt; // 0 while no write is in progress
+        volatile boolean closed;
+        volatile Throwable error;
+
+        Client(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+    }
+
+    // ── Subscribe ─────────────────────────────────────────────
+    public SseEmitter subscribe(User user, Long lastEventId) {
+        Long userId = user.getId();
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT);
+        Client client = new Client(userId, emitter);
+        clients.computeIfAbsent(userId, k -> ConcurrentHashMap.newKeySet()).add(client);
+
+        Runnable remove = () -> removeClient(client);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+
+        List<Notification> missed = lastEventId != null
+                ? notificationRepository.findByUserIdAndIdGreaterThanOrderByIdAsc(userId, lastEventId,
+                        Limit.of(REPLAY_LIMIT))
+                : List.of();
+        for (Notification n : missed) {
+            enqueue(client, notificationEvent(n));
+        }
+        enqueue(client, unreadEvent(unreadCountCache.get(userId)));
+        return emitter;
+    }
+
+    private void removeClient(Client client) {
+        client.closed = true;
+        clients.computeIfPresent(client.userId, (id, set) -> {
+            set.remove(client);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    /**
+     * Disconnects a client; the browser reconnects and replays what it
+     * missed. Only marks it closed: its sender completes the emitter once
+     * any write in progress has returned.
+     */
+    private void drop(Client client) {
+        removeClient(client);
+        schedule(client);
+    }
+
+    // Sender thread only
+    private void complete(Client client) {
+        try {
+            if (client.error != null) client.emitter.completeWithError(client.error);
+            else client.emitter.complete();
+        } catch (IllegalStateException e) {
+            // Already completed
+        }
+    }
+
+    // ── Publish ───────────────────────────────────────────────
+    public void publishNotification(Notification n) {
+        Set<Client> set = clients.get(n.getUser().getId());
+        if (set == null) return;
+
+        // Builders are not thread-safe, so every client gets its own
+        for (Client client : set) enqueue(client, notificationEvent(n));
+    }
+
+    public void publishUnreadCount(Long userId) {
+        Set<Client> set = clients.get(userId);
+        if (set == null) return;
+
+        long unread = unreadCountCache.get(userId);
+        for (Client client : set) enqueue(client, unreadEvent(unread));
+    }
+
+    /**
+     * Comment line to every open stream so proxies keep idle connections
+     * open and dead ones are detected. Also disconnects clients whose
+     * current write has been blocked for too long; the blocked write
+     * itself is failed by the connector's write timeout.
+     */
+    @Scheduled(fixedRate = 25000)
+    public void heartbeat() {
+        long now = System.currentTimeMillis();
+        clients.values().forEach(set -> {
+            for (Client client : set) {
+                long started = client.sendStartedAt;
+                if (started != 0 && now - started > SEND_TIMEOUT_MILLIS) {
+                    drop(client);
+                } else {
+                    enqueue(client, SseEmitter.event().comment("ping"));
+                }
+            }
+        });
+    }
+
+    // ── Per-client queue ──────────────────────────────────────
+    private void enqueue(Client client, SseEmitter.SseEventBuilder event) {
+        if (client.closed) return;
+        if (client.pendingCount.incrementAndGet() > MAX_PENDING_EVENTS) {
+            drop(client);
+            return;
+        }
+        client.pending.add(event);
+        schedule(client);
+    }
+
+    private void schedule(Client client) {
+        if (client.draining.compareAndSet(false, true)) {
+            senders.execute(() -> drain(client));
+        }
+    }
+
+    // Sender thread only; at most one drain per client runs at a time
+    private void drain(Client client) {
+        SseEmitter.SseEventBuilder event;
+        while (!client.closed && (event = client.pending.poll()) != null) {
+            client.pendingCount.decrementAndGet();
+            client.sendStartedAt = System.currentTimeMillis();
+            try {
+                client.emitter.send(event);
+            } catch (IOException | IllegalStateException e) {
+                client.error = e;
+                removeClient(client);
+            } finally {
+                client.sendStartedAt = 0;
+            }
+        }
+        if (client.closed) {
+            // Leave the flag set: nothing is sent to this client any more
+            complete(client);
+            return;
+        }
+        client.draining.set(false);
+        // An event may have been queued, or the client dropped, after the last check
+        if (client.closed || !client.pending.isEmpty()) schedule(client);
+    }
+
+    private static SseEmitter.SseEventBuilder notificationEvent(Notification n) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("id", n.getId());
+        data.put("title", n.getTitle());
+        data.put("message", n.getMessage());
+        data.put("type", n.getType().name());
+        data.put("createdAt", String.valueOf(n.getCreatedAt()));
+        return SseEmitter.event()
+                .id(String.valueOf(n.getId()))
+                .name("notification")
+                .data(data, MediaType.APPLICATION_JSON);
+    }
+
+    private static SseEmitter.SseEventBuilder unreadEvent(long count) {
+        return SseEmitter.event().name("unread").data(count);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Queued completions still run; a sender stuck on a stalled write does not hold up shutdown
+        clients.values().forEach(set -> set.forEach(this::drop));
+        senders.shutdown();
+    }
+}
@@ -0,0 +1,21 @@
+package com.cms.service;
+
+import java.util.List;
+
+/**
+ * A run of consecutive pages of a document and its total page count.
+ */
+public class PageRange {
+
+    private final int pageCount;
+    private final List<PageText> pages;
+
+    public PageRange(int pageCount, List<PageText> pages) {
+        this.pageCount = pageCount;
+        this.pages = pages;
+    }
+
+    public int getPageCount() { return pageCount; }
+
+    public List<PageText> getPages() { return pages; }
+}
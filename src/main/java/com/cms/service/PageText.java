@@ -0,0 +1,26 @@
+package com.cms.service;
+
+import java.util.List;
+
+/**
+ * Text of one document page plus the character offsets where the
+ * in-document search term occurs on it (empty without a search).
+ */
+public class PageText {
+
+    private final int number;
+    private final String text;
+    private final List<Integer> hits;
+
+    public PageText(int number, String text, List<Integer> hits) {
+        this.number = number;
+        this.text = text;
+        this.hits = hits;
+    }
+
+    public int getNumber() { return number; }
+
+    public String getText() { return text; }
+
+    public List<Integer> getHits() { return hits; }
+}
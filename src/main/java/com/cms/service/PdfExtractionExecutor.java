@@ -0,0 +1,256 @@
+package com.cms.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.Serial;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Dedicated, bounded pool for PDF text extraction and other whole-PDF
+ * jobs (first-page renditions), which share all of its limits.
+ *
+ * At most max-concurrency documents are parsed at once and at most
+ * queue-capacity wait; anything beyond is rejected instead of piling up.
+ * Each job has a wall-clock timeout, files over max-bytes are refused,
+ * only the first max-pages pages are read, and documents over the scratch
+ * threshold are parsed in PDFBox's temp-file mode. Long documents are
+ * split into page ranges that are extracted in parallel on a fork-join
+ * pool, each range with its own PDDocument (PDFBox is not thread-safe).
+ * Fork-join workers are never interrupted, so every range checks the
+ * job's cancel flag before each page and stops once the job times out.
+ */
+@Service
+public class PdfExtractionExecutor {
+
+    @Value("${cms.extraction.max-concurrency:2}")
+    private int maxConcurrency;
+
+    @Value("${cms.extraction.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${cms.extraction.timeout-seconds:120}")
+    private long timeoutSeconds;
+
+    @Value("${cms.extraction.max-pages:1000}")
+    private int maxPages;
+
+    @Value("${cms.extraction.max-bytes:104857600}")
+    private long maxBytes;
+
+    @Value("${cms.extraction.scratch-threshold-bytes:10485760}")
+    private long scratchThresholdBytes;
+
+    @Value("${cms.extraction.pages-per-task:25}")
+    private int pagesPerTask;
+
+    @Value("${cms.extraction.page-parallelism:4}")
+    private int pageParallelism;
+
+    @Autowired
+    private TextExtractionService textExtractionService;
+
+    private ThreadPoolExecutor workers;
+    private ForkJoinPool pagePool;
+    private ScheduledExecutorService watchdog;
+
+    /**
+     * Work on one PDF. scratch says whether to load it in PDFBox's temp-file
+     * mode; deadline is a System.nanoTime() value, and cancelled turns true
+     * once the job has timed out.
+     */
+    @FunctionalInterface
+    public interface PdfJob<T> {
+        T run(Path pdf, boolean scratch, long deadline, AtomicBoolean cancelled) throws Exception;
+    }
+
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong totalQueueWaitNanos = new AtomicLong();
+    private final AtomicLong totalRunNanos = new AtomicLong();
+    private final LongAccumulator maxRunNanos = new LongAccumulator(Math::max, 0);
+
+    @PostConstruct
+    void start() {
+        workers = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), daemonThreads("pdf-extract"));
+        pagePool = new ForkJoinPool(pageParallelism);
+        watchdog = Executors.newSingleThreadScheduledExecutor(daemonThreads("pdf-extract-watchdog"));
+    }
+
+    /**
+     * Queue a PDF for extraction. The future fails with
+     * RejectedExecutionException when the queue is full, TimeoutException
+     * when the job overruns, and IOException for unreadable or oversized files.
+     */
+    public CompletableFuture<List<String>> submit(Path pdf) {
+        return submit(pdf, this::extract);
+    }
+
+    /**
+     * Queue any job on a PDF under the same concurrency, queue, size and
+     * timeout limits as text extraction.
+     */
+    public <T> CompletableFuture<T> submit(Path pdf, PdfJob<T> job) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        long enqueuedAt = System.nanoTime();
+        try {
+            workers.execute(() -> run(pdf, job, enqueuedAt, result));
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    private <T> void run(Path pdf, PdfJob<T> job, long enqueuedAt, CompletableFuture<T> result) {
+        long startedAt = System.nanoTime();
+        started.incrementAndGet();
+        totalQueueWaitNanos.addAndGet(startedAt - enqueuedAt);
+
+        Thread worker = Thread.currentThread();
+        AtomicBoolean cancelled = new AtomicBoolean();
+        ScheduledFuture<?> timer = watchdog.schedule(() -> {
+            if (result.completeExceptionally(new TimeoutException(
+                    "PDF job exceeded " + timeoutSeconds + "s"))) {
+                timedOut.incrementAndGet();
+                cancelled.set(true);
+                worker.interrupt();
+            }
+        }, timeoutSeconds, TimeUnit.SECONDS);
+
+        try {
+            long size = Files.size(pdf);
+            if (size > maxBytes) {
+                throw new IOException("PDF is " + (size >> 20) + " MB; the limit is " + (maxBytes >> 20) + " MB");
+            }
+            T value = job.run(pdf, size > scratchThresholdBytes,
+                    startedAt + TimeUnit.SECONDS.toNanos(timeoutSeconds), cancelled);
+            if (result.complete(value)) completed.incrementAndGet();
+        } catch (Exception e) {
+            if (result.completeExceptionally(e)) failed.incrementAndGet();
+        } finally {
+            timer.cancel(false);
+            Thread.interrupted(); // clear a late interrupt before the thread is reused
+            long runNanos = System.nanoTime() - startedAt;
+            totalRunNanos.addAndGet(runNanos);
+            maxRunNanos.accumulate(runNanos);
+        }
+    }
+
+    // Text of each page, in order
+    private List<String> extract(Path pdf, boolean scratch, long deadline, AtomicBoolean cancelled) throws Exception {
+        int pages = Math.min(textExtractionService.countPdfPages(pdf, scratch), maxPages);
+        if (pages == 0) return List.of();
+        if (pages <= pagesPerTask) {
+            return textExtractionService.extractPdfPages(pdf, 1, pages, scratch, cancelled::get);
+        }
+
+        ForkJoinTask<List<String>> task = pagePool.submit(
+                new PageRangeTask(pdf, 1, pages, scratch, deadline, cancelled));
+        try {
+            return task.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof CompletionException && cause.getCause() != null) cause = cause.getCause();
+            throw cause instanceof Exception ex ? ex : e;
+        } finally {
+            // Stops ranges still running; cancel() alone never reaches a started range
+            cancelled.set(true);
+            task.cancel(true);
+        }
+    }
+
+    /**
+     * Splits [start, end] in half until a range is at most pagesPerTask
+     * pages, then extracts it with its own document instance.
+     */
+    private class PageRangeTask extends RecursiveTask<List<String>> {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final Path pdf;
+        private final int start;
+        private final int end;
+        private final boolean scratch;
+        private final long deadline;
+        private final AtomicBoolean cancelled;
+
+        PageRangeTask(Path pdf, int start, int end, boolean scratch, long deadline, AtomicBoolean cancelled) {
+            this.pdf = pdf;
+            this.start = start;
+            this.end = end;
+            this.scratch = scratch;
+            this.deadline = deadline;
+            this.cancelled = cancelled;
+        }
+
+        @Override
+        protected List<String> compute() {
+            if (cancelled.get() || System.nanoTime() > deadline) {
+                throw new CompletionException(new TimeoutException("Extraction deadline passed"));
+            }
+            if (end - start + 1 <= pagesPerTask) {
+                try {
+                    return textExtractionService.extractPdfPages(pdf, start, end, scratch,
+                            () -> cancelled.get() || System.nanoTime() > deadline);
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            }
+            int mid = (start + end) >>> 1;
+            PageRangeTask left = new PageRangeTask(pdf, start, mid, scratch, deadline, cancelled);
+            PageRangeTask right = new PageRangeTask(pdf, mid + 1, end, scratch, deadline, cancelled);
+            right.fork();
+            List<String> pages = new ArrayList<>(left.compute());
+            pages.addAll(right.join());
+            return pages;
+        }
+    }
+
+    // ── Metrics ───────────────────────────────────────────────
+    public ExtractionStats getStats() {
+        long runs = started.get();
+        long finished = completed.get() + failed.get() + timedOut.get();
+        return new ExtractionStats(
+                workers.getQueue().size(),
+                workers.getActiveCount(),
+                completed.get(),
+                failed.get(),
+                timedOut.get(),
+                rejected.get(),
+                runs == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalQueueWaitNanos.get() / runs),
+                finished == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalRunNanos.get() / finished),
+                TimeUnit.NANOSECONDS.toMillis(maxRunNanos.get()));
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicLong counter = new AtomicLong();
+        return r -> {
+            Thread t = new Thread(r, name + "-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        watchdog.shutdownNow();
+        pagePool.shutdownNow();
+        workers.shutdownNow();
+    }
+}
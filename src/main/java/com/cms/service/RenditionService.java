@@ -0,0 +1,242 @@
+package com.cms.service;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Produces small JPEG renditions of attachments in the background: scaled
+ * copies of images and a raster of the first page of PDFs. Renditions are
+ * keyed by content hash, stored beside the blob and never change, so they
+ * are served with immutable cache headers.
+ *
+ * PDFs are rasterised on the bounded extraction pool, under its size,
+ * scratch-file and timeout limits, and the page is rendered no larger
+ * than needed. Content that cannot be rendered gets a marker file, so
+ * later views do not queue the same failing render again.
+ */
+@Service
+public class RenditionService {
+
+    public enum Size {
+        SMALL("small", 160),
+        MEDIUM("medium", 640);
+
+        private final String variant;
+        private final int maxEdge;
+
+        Size(String variant, int maxEdge) {
+            this.variant = variant;
+            this.maxEdge = maxEdge;
+        }
+
+        public String variant() { return variant; }
+
+        public static Size fromVariant(String variant) {
+            for (Size size : values()) {
+                if (size.variant.equals(variant)) return size;
+            }
+            return null;
+        }
+    }
+
+    // Enough for a sharp MEDIUM rendition of an A4 page
+    private static final float PDF_RENDER_DPI = 96f;
+    // Caps the raster of oversized pages (posters, drawings) to bound memory
+    private static final int PDF_RENDER_MAX_EDGE = 2 * 640;
+    // Empty file beside the renditions, named like one so it is collected with them
+    public static final String FAILED_MARKER = "failed";
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private TextExtractionService textExtractionService;
+
+    @Autowired
+    private PdfExtractionExecutor pdfExtractionExecutor;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private Executor taskExecutor;
+
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The stored rendition, or null if it has not been generated (yet).
+     */
+    public Path findRendition(String contentHash, Size size) {
+        if (contentHash == null) return null;
+        Path path = fileStorageService.renditionPath(contentHash, size.variant());
+        return Files.exists(path) ? path : null;
+    }
+
+    public boolean supports(String fileName) {
+        return textExtractionService.isPdf(fileName) || textExtractionService.isImage(fileName);
+    }
+
+    /**
+     * Generate any missing renditions of a stored attachment. A no-op when
+     * they exist, an earlier attempt failed, or the same content is already
+     * being rendered.
+     */
+    @Async
+    public void requestRenditions(String fileName, String contentHash) {
+        if (fileName == null || contentHash == null || !supports(fileName)) return;
+        if (findRendition(contentHash, Size.SMALL) != null && findRendition(contentHash, Size.MEDIUM) != null) return;
+        if (Files.exists(fileStorageService.renditionPath(contentHash, FAILED_MARKER))) return;
+        if (!inFlight.add(contentHash)) return;
+
+        if (textExtractionService.isPdf(fileName)) {
+            Path pdf;
+            try {
+                pdf = fileStorageService.loadFile(fileName);
+            } catch (RuntimeException e) {
+                finish(fileName, contentHash, null, e);
+                return;
+            }
+            pdfExtractionExecutor.submit(pdf, this::renderFirstPage)
+                    .whenCompleteAsync((image, error) -> finish(fileName, contentHash, image, error), taskExecutor);
+        } else {
+            BufferedImage image = null;
+            Throwable error = null;
+            try {
+                image = readImage(fileStorageService.openBlob(fileName), Size.MEDIUM.maxEdge);
+            } catch (IOException | RuntimeException e) {
+                error = e;
+            }
+            finish(fileName, contentHash, image, error);
+        }
+    }
+
+    private void finish(String fileName, String contentHash, BufferedImage image, Throwable error) {
+        try {
+            // A full queue says nothing about the file; the next view asks again
+            if (error instanceof RejectedExecutionException) return;
+            if (error == null && image == null) error = new IOException("nothing to render");
+            if (error == null) {
+                for (Size size : Size.values()) {
+                    writeJpeg(scale(image, size.maxEdge), fileStorageService.renditionPath(contentHash, size.variant()));
+                }
+                return;
+            }
+        } catch (IOException | RuntimeException e) {
+            error = e;
+        } finally {
+            inFlight.remove(contentHash);
+        }
+
+        System.err.println("Could not render preview for " + fileName + ": " + error.getMessage());
+        try {
+            Path marker = fileStorageService.renditionPath(contentHash, FAILED_MARKER);
+            Files.createDirectories(marker.getParent());
+            Files.write(marker, new byte[0]);
+        } catch (IOException e) {
+            System.err.println("Could not record failed preview for " + fileName + ": " + e.getMessage());
+        }
+    }
+
+    // Runs on the extraction pool; at most PDF_RENDER_MAX_EDGE pixels on the longest side
+    private BufferedImage renderFirstPage(Path pdf, boolean scratch, long deadline, AtomicBoolean cancelled)
+            throws IOException {
+        try (PDDocument document = textExtractionService.loadPdf(pdf, scratch)) {
+            if (document.getNumberOfPages() == 0) return null;
+
+            PDRectangle box = document.getPage(0).getCropBox();
+            float longestPoints = Math.max(1f, Math.max(box.getWidth(), box.getHeight()));
+            float scale = Math.min(PDF_RENDER_DPI / 72f, PDF_RENDER_MAX_EDGE / longestPoints);
+            return new PDFRenderer(document).renderImage(0, scale, ImageType.RGB);
+        }
+    }
+
+    /**
+     * Decodes an image, subsampling while reading so a large photo is never
+     * held at full resolution just to be shrunk.
+     */
+    private BufferedImage readImage(BlobContent blob, int targetEdge) throws IOException {
+        try (InputStream raw = blob.openStream();
+             ImageInputStream in = ImageIO.createImageInputStream(raw)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) return null;
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int longest = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int step = Math.max(1, longest / (targetEdge * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Fits within maxEdge (never enlarges) on a white background, since JPEG has no alpha
+    private static BufferedImage scale(BufferedImage source, int maxEdge) {
+        // Halve first while far too large; one big bilinear step would alias
+        while (Math.max(source.getWidth(), source.getHeight()) > maxEdge * 2) {
+            source = resize(source, Math.max(1, source.getWidth() / 2), Math.max(1, source.getHeight() / 2));
+        }
+        double factor = Math.min(1.0, (double) maxEdge / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * factor));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * factor));
+        return resize(source, width, height);
+    }
+
+    private static BufferedImage resize(BufferedImage source, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    // Written under a temp name and renamed, so readers never see a partial file
+    private static void writeJpeg(BufferedImage image, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), "rendition-", ".tmp");
+        try {
+            if (!ImageIO.write(image, "jpg", temp.toFile())) {
+                throw new IOException("No JPEG writer available");
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
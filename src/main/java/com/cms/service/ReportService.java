@@ -0,0 +1,58 @@
+package com.cms.service;
+
+import com.cms.model.Contract;
+import com.cms.model.User;
+import com.cms.repository.ContractRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Report breakdowns computed with GROUP BY in the database, so only a
+ * handful of (key, count) rows cross the wire regardless of contract count.
+ */
+@Service
+public class ReportService {
+
+    @Autowired
+    private ContractRepository contractRepository;
+
+    /**
+     * Contract count per party. Contracts without a party are under the null key.
+     */
+    public Map<Contract.Party, Long> getPartyCounts(User user) {
+        List<Object[]> rows = user.getRole() == User.Role.ADMIN
+                ? contractRepository.countGroupedByParty()
+                : contractRepository.countGroupedByPartyForUser(user.getId());
+
+        Map<Contract.Party, Long> counts = new HashMap<>();
+        for (Object[] row : rows) {
+            counts.put((Contract.Party) row[0], (Long) row[1]);
+        }
+        return counts;
+    }
+
+    /**
+     * Contract count per type, largest first. Missing types are folded into "Unspecified".
+     */
+    public Map<String, Long> getTypeCounts(User user) {
+        List<Object[]> rows = user.getRole() == User.Role.ADMIN
+                ? contractRepository.countGroupedByType()
+                : contractRepository.countGroupedByTypeForUser(user.getId());
+
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            String type = (String) row[0];
+            if (type == null || type.isEmpty()) {
+                counts.merge("Unspecified", (Long) row[1], Long::sum);
+            } else {
+                counts.merge(type, (Long) row[1], Long::sum);
+            }
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,28 @@
+package com.cms.service;
+
+/**
+ * One ranked full-text match: the contract, its relevance score and a
+ * short excerpt around the first matched term.
+ */
+public class SearchHit {
+
+    private final Long contractId;
+    private final String title;
+    private final double score;
+    private final String snippet;
+
+    public SearchHit(Long contractId, String title, double score, String snippet) {
+        this.contractId = contractId;
+        this.title = title;
+        this.score = score;
+        this.snippet = snippet;
+    }
+
+    public Long getContractId() { return contractId; }
+
+    public String getTitle() { return title; }
+
+    public double getScore() { return score; }
+
+    public String getSnippet() { return snippet; }
+}
@@ -0,0 +1,437 @@
+package com.cms.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Packs small blobs into large append-only segment files instead of one
+ * file per upload.
+ *
+ * Each record is [magic][name length][name][data length][data]. Where each
+ * blob lives is kept in an in-memory index backed by an append-only journal
+ * (PUT / DEL entries), which is memory-mapped and replayed at startup.
+ * Reads return slices of memory-mapped segments. Deleting only drops the
+ * index entry; a background pass rewrites the live records of segments
+ * that are mostly holes into the active segment and removes the old file.
+ *
+ * Enabled with cms.storage.backend=segments. Existing segments are always
+ * readable, so switching back to plain files keeps old blobs reachable.
+ */
+@Service
+public class SegmentBlobStore {
+
+    private static final Path SEGMENT_DIR = Paths.get("uploads", "segments");
+    private static final Path JOURNAL = SEGMENT_DIR.resolve("index.log");
+    private static final int RECORD_MAGIC = 0x434D5342; // "CMSB"
+    private static final byte OP_PUT = 1;
+    private static final byte OP_DEL = 2;
+
+    @Value("${cms.storage.backend:files}")
+    private String backend;
+
+    // Only blobs up to this size are packed; larger ones stay plain files
+    @Value("${cms.storage.segment.max-blob-bytes:524288}")
+    private long maxBlobBytes;
+
+    @Value("${cms.storage.segment.max-segment-bytes:268435456}")
+    private long maxSegmentBytes;
+
+    // Compact a sealed segment once at least this fraction of it is dead
+    @Value("${cms.storage.segment.compact-dead-ratio:0.5}")
+    private double compactDeadRatio;
+
+    private static class Location {
+        final int segment;
+        final long offset;
+        final int length;
+        volatile long touchedAt;
+
+        Location(int segment, long offset, int length, long touchedAt) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.touchedAt = touchedAt;
+        }
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Location> index = new ConcurrentHashMap<>();
+    private final Map<Integer, Long> liveBytes = new ConcurrentHashMap<>();
+    private final Map<Integer, MappedByteBuffer> mappings = new ConcurrentHashMap<>();
+
+    // Guarded by the write lock
+    private FileChannel journal;
+    private FileChannel active;
+    // Written under the write lock, read without it when listing sealed segments
+    private volatile int activeId;
+    private long activeSize;
+
+    @PostConstruct
+    void open() throws IOException {
+        if (!Files.isDirectory(SEGMENT_DIR)) {
+            if (!isEnabled()) return;
+            Files.createDirectories(SEGMENT_DIR);
+        }
+        replayJournal();
+        journal = FileChannel.open(JOURNAL, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+
+        try (Stream<Path> files = Files.list(SEGMENT_DIR)) {
+            activeId = files.map(p -> segmentId(p.getFileName().toString()))
+                    .filter(id -> id > 0)
+                    .max(Integer::compare)
+                    .orElse(0);
+        }
+    }
+
+    public boolean isEnabled() {
+        return "segments".equalsIgnoreCase(backend);
+    }
+
+    /**
+     * Whether a new blob of this name and size should be packed. PDFs are
+     * never packed: PDFBox and sendfile need a real file.
+     */
+    public boolean accepts(String blobName, long size) {
+        return isEnabled() && size <= maxBlobBytes && !blobName.endsWith(".pdf");
+    }
+
+    public boolean contains(String blobName) {
+        return index.containsKey(blobName);
+    }
+
+    /**
+     * Append a blob from a file. If it is already stored it is only touched.
+     */
+    public void put(String blobName, Path source) throws IOException {
+        lock.writeLock().lock();
+        try {
+            Location existing = index.get(blobName);
+            if (existing != null) {
+                // Journaled, so the orphan grace period survives a restart
+                existing.touchedAt = System.currentTimeMillis();
+                writeJournal(OP_PUT, blobName, existing);
+                return;
+            }
+            try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ)) {
+                long size = in.size();
+                long dataOffset = appendHeader(blobName, size);
+                long written = 0;
+                while (written < size) {
+                    long n = active.transferFrom(in, dataOffset + written, size - written);
+                    if (n <= 0) throw new IOException("Short write to segment " + activeId);
+                    written += n;
+                }
+                commitAppend(blobName, dataOffset, (int) size, System.currentTimeMillis());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Content of a packed blob, or null if it is not in the store.
+     */
+    public BlobContent open(String blobName) throws IOException {
+        lock.readLock().lock();
+        try {
+            Location loc = index.get(blobName);
+            if (loc == null) return null;
+            ByteBuffer segment = mapping(loc.segment, loc.offset + loc.length);
+            return BlobContent.ofBuffer(segment.slice((int) loc.offset, loc.length).asReadOnlyBuffer(), loc.touchedAt);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * When the blob was stored or last re-uploaded (epoch ms), or -1.
+     */
+    public long touchedAt(String blobName) {
+        Location loc = index.get(blobName);
+        return loc != null ? loc.touchedAt : -1;
+    }
+
+    public boolean delete(String blobName) throws IOException {
+        lock.writeLock().lock();
+        try {
+            Location loc = index.remove(blobName);
+            if (loc == null) return false;
+            writeJournal(OP_DEL, blobName, null);
+            liveBytes.merge(loc.segment, (long) -loc.length, Long::sum);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Snapshot of packed blob names with their sizes (for usage accounting and GC).
+     */
+    public Map<String, Integer> listBlobs() {
+        Map<String, Integer> sizes = new java.util.HashMap<>();
+        index.forEach((name, loc) -> sizes.put(name, loc.length));
+        return sizes;
+    }
+
+    // ── Compaction ────────────────────────────────────────────
+    @Scheduled(fixedDelay = 3600000, initialDelay = 600000)
+    public void compact() {
+        if (journal == null || !isEnabled()) return;
+
+        boolean compacted = false;
+        for (int segment : sealedSegments()) {
+            try {
+                long fileSize = Files.size(segmentPath(segment));
+                long live = liveBytes.getOrDefault(segment, 0L);
+                if (fileSize == 0 || 1.0 - (double) live / fileSize < compactDeadRatio) continue;
+                compactSegment(segment);
+                compacted = true;
+            } catch (IOException e) {
+                System.err.println("Segment " + segment + " compaction failed: " + e.getMessage());
+            }
+        }
+        if (compacted) {
+            try {
+                rewriteJournal();
+            } catch (IOException e) {
+                System.err.println("Segment index rewrite failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private List<Integer> sealedSegments() {
+        List<Integer> ids = new ArrayList<>();
+        // Ids only grow, so a segment that is not active now is sealed for good
+        int current = activeId;
+        try (Stream<Path> files = Files.list(SEGMENT_DIR)) {
+            files.map(p -> segmentId(p.getFileName().toString()))
+                    .filter(id -> id > 0 && id < current)
+                    .forEach(ids::add);
+        } catch (IOException e) {
+            System.err.println("Could not list segments: " + e.getMessage());
+        }
+        return ids;
+    }
+
+    /**
+     * Moves live records one at a time, so reads and uploads are only held
+     * up for one small copy. Slices already handed out stay valid: the old
+     * mapping outlives the deleted file.
+     */
+    private void compactSegment(int segment) throws IOException {
+        List<String> names = new ArrayList<>();
+        index.forEach((name, loc) -> {
+            if (loc.segment == segment) names.add(name);
+        });
+
+        for (String name : names) {
+            lock.writeLock().lock();
+            try {
+                Location loc = index.get(name);
+                if (loc == null || loc.segment != segment) continue;
+                ByteBuffer data = mapping(segment, loc.offset + loc.length).slice((int) loc.offset, loc.length);
+                long dataOffset = appendHeader(name, loc.length);
+                long position = dataOffset;
+                while (data.hasRemaining()) {
+                    position += active.write(data, position);
+                }
+                liveBytes.merge(segment, (long) -loc.length, Long::sum);
+                commitAppend(name, dataOffset, loc.length, loc.touchedAt);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            mappings.remove(segment);
+            liveBytes.remove(segment);
+            Files.deleteIfExists(segmentPath(segment));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ── Appends (caller holds the write lock) ─────────────────
+    private long appendHeader(String blobName, long size) throws IOException {
+        byte[] name = blobName.getBytes(StandardCharsets.US_ASCII);
+        rollIfNeeded(size + 10 + name.length);
+
+        ByteBuffer header = ByteBuffer.allocate(10 + name.length);
+        header.putInt(RECORD_MAGIC).putShort((short) name.length).put(name).putInt((int) size).flip();
+        long position = activeSize;
+        while (header.hasRemaining()) {
+            position += active.write(header, position);
+        }
+        return position;
+    }
+
+    private void commitAppend(String blobName, long dataOffset, int length, long touchedAt) throws IOException {
+        active.force(false);
+        activeSize = dataOffset + length;
+        Location loc = new Location(activeId, dataOffset, length, touchedAt);
+        writeJournal(OP_PUT, blobName, loc);
+        index.put(blobName, loc);
+        liveBytes.merge(activeId, (long) length, Long::sum);
+    }
+
+    private void rollIfNeeded(long recordSize) throws IOException {
+        if (active != null && (activeSize == 0 || activeSize + recordSize <= maxSegmentBytes)) return;
+        if (active == null && activeId > 0) {
+            active = FileChannel.open(segmentPath(activeId), StandardOpenOption.WRITE, StandardOpenOption.READ);
+            activeSize = active.size();
+            if (activeSize == 0 || activeSize + recordSize <= maxSegmentBytes) return;
+        }
+        if (active != null) active.close();
+        activeId++;
+        active = FileChannel.open(segmentPath(activeId), StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.WRITE, StandardOpenOption.READ);
+        activeSize = 0;
+    }
+
+    // ── Memory mappings ───────────────────────────────────────
+
+    // Remaps the growing active segment when a read reaches past the current mapping
+    private ByteBuffer mapping(int segment, long needed) throws IOException {
+        MappedByteBuffer mapped = mappings.get(segment);
+        if (mapped != null && mapped.capacity() >= needed) return mapped;
+        synchronized (mappings) {
+            mapped = mappings.get(segment);
+            if (mapped == null || mapped.capacity() < needed) {
+                try (FileChannel channel = FileChannel.open(segmentPath(segment), StandardOpenOption.READ)) {
+                    mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                }
+                mappings.put(segment, mapped);
+            }
+            return mapped;
+        }
+    }
+
+    // ── Journal ───────────────────────────────────────────────
+    private void writeJournal(byte op, String blobName, Location loc) throws IOException {
+        journal.write(encodeEntry(op, blobName, loc));
+        journal.force(false);
+    }
+
+    private static ByteBuffer encodeEntry(byte op, String blobName, Location loc) {
+        byte[] name = blobName.getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer entry = ByteBuffer.allocate(3 + name.length + (loc != null ? 24 : 0));
+        entry.put(op).putShort((short) name.length).put(name);
+        if (loc != null) {
+            entry.putInt(loc.segment).putLong(loc.offset).putInt(loc.length).putLong(loc.touchedAt);
+        }
+        return entry.flip();
+    }
+
+    /**
+     * Rebuilds the index from the mapped journal. A torn entry at the end
+     * (crash mid-write) is cut off.
+     */
+    private void replayJournal() throws IOException {
+        if (!Files.exists(JOURNAL)) return;
+
+        long valid = 0;
+        long size;
+        try (FileChannel channel = FileChannel.open(JOURNAL, StandardOpenOption.READ)) {
+            size = channel.size();
+            if (size == 0) return;
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            while (buffer.hasRemaining()) {
+                try {
+                    byte op = buffer.get();
+                    byte[] name = new byte[buffer.getShort()];
+                    buffer.get(name);
+                    String blobName = new String(name, StandardCharsets.US_ASCII);
+                    if (op == OP_PUT) {
+                        Location loc = new Location(buffer.getInt(), buffer.getLong(), buffer.getInt(), buffer.getLong());
+                        Location old = index.put(blobName, loc);
+                        if (old != null) liveBytes.merge(old.segment, (long) -old.length, Long::sum);
+                        liveBytes.merge(loc.segment, (long) loc.length, Long::sum);
+                    } else if (op == OP_DEL) {
+                        Location old = index.remove(blobName);
+                        if (old != null) liveBytes.merge(old.segment, (long) -old.length, Long::sum);
+                    } else {
+                        break;
+                    }
+                    valid = buffer.position();
+                } catch (BufferUnderflowException e) {
+                    break;
+                }
+            }
+        }
+
+        if (valid < size) {
+            System.err.println("Segment index: discarding " + (size - valid) + " trailing byte(s)");
+            try (FileChannel channel = FileChannel.open(JOURNAL, StandardOpenOption.WRITE)) {
+                channel.truncate(valid);
+            }
+        }
+    }
+
+    // Replaces the journal with one PUT per live blob, dropping history
+    private void rewriteJournal() throws IOException {
+        lock.writeLock().lock();
+        try {
+            Path temp = Files.createTempFile(SEGMENT_DIR, "index-", ".tmp");
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                for (Map.Entry<String, Location> e : index.entrySet()) {
+                    ByteBuffer entry = encodeEntry(OP_PUT, e.getKey(), e.getValue());
+                    while (entry.hasRemaining()) out.write(entry);
+                }
+                out.force(true);
+            }
+            journal.close();
+            Files.move(temp, JOURNAL, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            journal = FileChannel.open(JOURNAL, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static Path segmentPath(int id) {
+        return SEGMENT_DIR.resolve(String.format("segment-%06d.dat", id));
+    }
+
+    private static int segmentId(String fileName) {
+        if (!fileName.startsWith("segment-") || !fileName.endsWith(".dat")) return -1;
+        try {
+            return Integer.parseInt(fileName.substring("segment-".length(), fileName.length() - ".dat".length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (active != null) active.close();
+            if (journal != null) journal.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
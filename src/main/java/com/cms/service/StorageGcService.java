@@ -0,0 +1,270 @@
+package com.cms.service;
+
+import com.cms.repository.AttachmentRepository;
+import com.cms.repository.ContractRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Mark-and-sweep collector for attachments no contract refers to.
+ *
+ * The mark phase reads every Contract.fileName and Attachment.fileName in
+ * keyset pages into a set of names. The sweep walks the upload tree lazily, plus the blobs packed
+ * into segments, and hands each unreferenced blob older than the grace
+ * period to FileStorageService, which checks the reference again under the
+ * blob's lock before removing it, so an upload saved after the mark is
+ * never lost. Orphans are moved to uploads/quarantine when quarantining is
+ * on, and purged from there after a retention period. Disk usage is
+ * tallied during the same walk.
+ */
+@Service
+public class StorageGcService {
+
+    private static final Path UPLOAD_ROOT = Paths.get("uploads");
+    private static final Path SEGMENT_DIR = UPLOAD_ROOT.resolve("segments");
+    private static final Path QUARANTINE_DIR = UPLOAD_ROOT.resolve("quarantine");
+    private static final int MARK_BATCH_SIZE = 1000;
+    private static final Pattern RENDITION_NAME = Pattern.compile("([0-9a-f]{64})\\.[a-z]+\\.jpg");
+
+    @Value("${cms.storage.gc.grace-hours:24}")
+    private long graceHours;
+
+    @Value("${cms.storage.gc.quarantine:true}")
+    private boolean quarantine;
+
+    @Value("${cms.storage.gc.quarantine-days:30}")
+    private long quarantineDays;
+
+    @Autowired
+    private ContractRepository contractRepository;
+
+    @Autowired
+    private AttachmentRepository attachmentRepository;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private SegmentBlobStore segmentStore;
+
+    @Autowired
+    private StorageMigrationService storageMigrationService;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong totalReclaimedBytes = new AtomicLong();
+    private volatile StorageStats lastStats = new StorageStats(0, 0, 0, 0, 0, 0, 0, null, 0, false);
+
+    // Tallies of one run
+    private static class Sweep {
+        long totalBytes;
+        long blobCount;
+        long packedBlobCount;
+        long orphansFound;
+        long reclaimedBytes;
+        long quarantinedBytes;
+    }
+
+    public StorageStats getStats() {
+        StorageStats s = lastStats;
+        return new StorageStats(s.getTotalBytes(), s.getBlobCount(), s.getPackedBlobCount(), s.getOrphansFound(),
+                s.getReclaimedBytes(), s.getQuarantinedBytes(), totalReclaimedBytes.get(), s.getLastRunAt(),
+                s.getLastRunMillis(), running.get());
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    @Scheduled(cron = "0 0 4 * * *")
+    public void collectNightly() {
+        collect();
+    }
+
+    @Async
+    public void collectInBackground() {
+        collect();
+    }
+
+    /**
+     * One full mark-and-sweep. Skipped while another run or the layout
+     * migration is in progress, since the migration briefly holds blobs
+     * that no contract names yet.
+     */
+    public void collect() {
+        if (storageMigrationService.isRunning() || !running.compareAndSet(false, true)) return;
+        long started = System.currentTimeMillis();
+        try {
+            Set<String> referenced = markReferencedNames();
+            Set<String> referencedHashes = new HashSet<>();
+            for (String name : referenced) {
+                int dot = name.indexOf('.');
+                if (dot > 0) referencedHashes.add(name.substring(0, dot));
+            }
+
+            Sweep sweep = new Sweep();
+            Instant cutoff = Instant.now().minus(Duration.ofHours(graceHours));
+            sweepFiles(referenced, referencedHashes, cutoff, sweep);
+            sweepSegments(referenced, sweep);
+            purgeQuarantine(sweep);
+
+            totalReclaimedBytes.addAndGet(sweep.reclaimedBytes);
+            lastStats = new StorageStats(sweep.totalBytes, sweep.blobCount, sweep.packedBlobCount,
+                    sweep.orphansFound, sweep.reclaimedBytes, sweep.quarantinedBytes, totalReclaimedBytes.get(),
+                    LocalDateTime.now(), System.currentTimeMillis() - started, false);
+            if (sweep.orphansFound > 0) {
+                System.out.println("Storage GC: " + sweep.orphansFound + " orphan(s), "
+                        + sweep.reclaimedBytes + " byte(s) reclaimed, "
+                        + sweep.quarantinedBytes + " byte(s) quarantined");
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Storage GC failed: " + e.getMessage());
+        } finally {
+            running.set(false);
+        }
+    }
+
+    // ── Mark ──────────────────────────────────────────────────
+    private Set<String> markReferencedNames() {
+        Set<String> names = new HashSet<>();
+        markPages(names, (afterId, page) -> contractRepository.findFileNamesAfter(afterId, page));
+        markPages(names, (afterId, page) -> attachmentRepository.findFileNamesAfter(afterId, page));
+        return names;
+    }
+
+    // Pages through (id, fileName) rows in id order
+    private void markPages(Set<String> names, BiFunction<Long, Pageable, List<Object[]>> query) {
+        Long afterId = 0L;
+        while (true) {
+            List<Object[]> rows = query.apply(afterId, PageRequest.of(0, MARK_BATCH_SIZE));
+            for (Object[] row : rows) {
+                names.add((String) row[1]);
+            }
+            if (rows.size() < MARK_BATCH_SIZE) return;
+            afterId = (Long) rows.get(rows.size() - 1)[0];
+        }
+    }
+
+    // ── Sweep ─────────────────────────────────────────────────
+    private void sweepFiles(Set<String> referenced, Set<String> referencedHashes, Instant cutoff, Sweep sweep) {
+        if (!Files.isDirectory(UPLOAD_ROOT)) return;
+
+        try (Stream<Path> paths = Files.walk(UPLOAD_ROOT)) {
+            paths.filter(p -> !p.startsWith(SEGMENT_DIR) && !p.startsWith(QUARANTINE_DIR))
+                    .forEach(p -> sweepFile(p, referenced, referencedHashes, cutoff, sweep));
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Storage GC could not walk " + UPLOAD_ROOT + ": " + e.getMessage());
+        }
+    }
+
+    private void sweepFile(Path path, Set<String> referenced, Set<String> referencedHashes, Instant cutoff,
+                           Sweep sweep) {
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+            if (!attrs.isRegularFile()) return;
+
+            String name = path.getFileName().toString();
+            boolean old = attrs.lastModifiedTime().toInstant().isBefore(cutoff);
+
+            if (name.endsWith(".tmp")) {
+                // Left behind by an upload or migration that died mid-copy
+                if (old && Files.deleteIfExists(path)) sweep.reclaimedBytes += attrs.size();
+                return;
+            }
+
+            Matcher rendition = RENDITION_NAME.matcher(name);
+            if (rendition.matches()) {
+                // Renditions go with their blob; these outlived it
+                if (old && !referencedHashes.contains(rendition.group(1)) && Files.deleteIfExists(path)) {
+                    sweep.reclaimedBytes += attrs.size();
+                } else {
+                    sweep.totalBytes += attrs.size();
+                }
+                return;
+            }
+
+            if (!referenced.contains(name) && old) {
+                sweep.orphansFound++;
+                long removed = fileStorageService.reclaimIfUnreferenced(name, Duration.ofHours(graceHours),
+                        quarantine ? QUARANTINE_DIR : null);
+                if (removed > 0) {
+                    if (quarantine) sweep.quarantinedBytes += removed;
+                    else sweep.reclaimedBytes += removed;
+                    return;
+                }
+            }
+            sweep.totalBytes += attrs.size();
+            sweep.blobCount++;
+        } catch (IOException e) {
+            System.err.println("Storage GC skipped " + path + ": " + e.getMessage());
+        }
+    }
+
+    private void sweepSegments(Set<String> referenced, Sweep sweep) {
+        for (Map.Entry<String, Integer> blob : segmentStore.listBlobs().entrySet()) {
+            String name = blob.getKey();
+            if (!referenced.contains(name)) {
+                sweep.orphansFound++;
+                try {
+                    long removed = fileStorageService.reclaimIfUnreferenced(name, Duration.ofHours(graceHours),
+                            quarantine ? QUARANTINE_DIR : null);
+                    if (removed > 0) {
+                        if (quarantine) sweep.quarantinedBytes += removed;
+                        else sweep.reclaimedBytes += removed;
+                        continue;
+                    }
+                } catch (IOException e) {
+                    System.err.println("Storage GC skipped packed blob " + name + ": " + e.getMessage());
+                }
+            }
+            sweep.totalBytes += blob.getValue();
+            sweep.blobCount++;
+            sweep.packedBlobCount++;
+        }
+    }
+
+    private void purgeQuarantine(Sweep sweep) {
+        if (!Files.isDirectory(QUARANTINE_DIR)) return;
+
+        Instant cutoff = Instant.now().minus(Duration.ofDays(quarantineDays));
+        try (Stream<Path> paths = Files.list(QUARANTINE_DIR)) {
+            paths.forEach(p -> {
+                try {
+                    BasicFileAttributes attrs = Files.readAttributes(p, BasicFileAttributes.class);
+                    if (attrs.isRegularFile() && attrs.lastModifiedTime().toInstant().isBefore(cutoff)
+                            && Files.deleteIfExists(p)) {
+                        sweep.reclaimedBytes += attrs.size();
+                    }
+                } catch (IOException e) {
+                    System.err.println("Storage GC could not purge " + p + ": " + e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("Storage GC could not list " + QUARANTINE_DIR + ": " + e.getMessage());
+        }
+    }
+}
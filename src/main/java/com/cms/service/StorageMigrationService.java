@@ -0,0 +1,152 @@
+package com.cms.service;
+
+import com.cms.event.ContractFilesChangedEvent;
+import com.cms.repository.ContractRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Moves attachments from the flat upload directory into the sharded blob
+ * layout while the application keeps serving them.
+ *
+ * Each batch copies files into their shard, repoints contracts to the
+ * blob name in one short transaction, and only then removes the flat
+ * copies, so every name a reader can see resolves at every step. A second
+ * pass records the content hash of attachments uploaded before hashes
+ * were kept, so viewing a contract never has to write it.
+ */
+@Service
+public class StorageMigrationService {
+
+    private static final int BATCH_SIZE = 200;
+
+    @Autowired
+    private ContractRepository contractRepository;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        migrate();
+    }
+
+    @Async
+    public void migrateInBackground() {
+        migrate();
+    }
+
+    /**
+     * Migrates every attachment still in the flat layout. Returns the
+     * number of files moved, or 0 if a migration is already running.
+     */
+    public int migrate() {
+        if (!running.compareAndSet(false, true)) return 0;
+        int total = 0;
+        int hashed = 0;
+        try {
+            Long afterId = 0L;
+            while (true) {
+                List<Object[]> rows = contractRepository.findFileNamesAfter(afterId, PageRequest.of(0, BATCH_SIZE));
+                total += migrateBatch(rows);
+                if (rows.size() < BATCH_SIZE) break;
+                afterId = (Long) rows.get(rows.size() - 1)[0];
+            }
+
+            afterId = 0L;
+            while (true) {
+                List<Object[]> rows = contractRepository.findUnhashedFileNamesAfter(afterId,
+                        PageRequest.of(0, BATCH_SIZE));
+                hashed += backfillHashes(rows);
+                if (rows.size() < BATCH_SIZE) break;
+                afterId = (Long) rows.get(rows.size() - 1)[0];
+            }
+        } finally {
+            running.set(false);
+        }
+        if (total > 0) {
+            System.out.println("Moved " + total + " attachment(s) to the sharded upload layout");
+        }
+        if (hashed > 0) {
+            System.out.println("Recorded the content hash of " + hashed + " older attachment(s)");
+        }
+        return total;
+    }
+
+    // A file that cannot be read is skipped and tried again on the next run
+    private int backfillHashes(List<Object[]> rows) {
+        List<Long> updated = new ArrayList<>();
+        for (Object[] row : rows) {
+            Long id = (Long) row[0];
+            String fileName = (String) row[1];
+            try {
+                String hash = fileStorageService.hashFile(fileName);
+                if (contractRepository.setFileHashIfMissing(id, hash) > 0) updated.add(id);
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Could not hash attachment " + fileName + ": " + e.getMessage());
+            }
+        }
+        if (!updated.isEmpty()) eventPublisher.publishEvent(new ContractFilesChangedEvent(updated));
+        return updated.size();
+    }
+
+    private int migrateBatch(List<Object[]> rows) {
+        Map<String, StoredFile> copied = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            String fileName = (String) row[1];
+            if (fileName.isBlank() || copied.containsKey(fileName)
+                    || !fileStorageService.needsMigration(fileName)) continue;
+            try {
+                StoredFile stored = fileStorageService.copyToShardedLayout(fileName);
+                if (stored != null) copied.put(fileName, stored);
+            } catch (IOException e) {
+                System.err.println("Could not migrate attachment " + fileName + ": " + e.getMessage());
+            }
+        }
+        if (copied.isEmpty()) return 0;
+
+        List<Long> rewritten = transactionTemplate.execute(status -> {
+            List<Long> ids = new ArrayList<>();
+            copied.forEach((oldName, stored) -> {
+                if (!oldName.equals(stored.getFileName())) {
+                    ids.addAll(contractRepository.findIdsByFileName(oldName));
+                    contractRepository.rewriteFileName(oldName, stored.getFileName(), stored.getContentHash(),
+                            stored.getOriginalName());
+                }
+            });
+            return ids;
+        });
+        copied.keySet().forEach(fileStorageService::removeFlatFile);
+        // The bulk UPDATE set new content hashes, so the search index must pick up their text
+        if (rewritten != null && !rewritten.isEmpty()) {
+            eventPublisher.publishEvent(new ContractFilesChangedEvent(rewritten));
+        }
+        return copied.size();
+    }
+}
@@ -0,0 +1,56 @@
+package com.cms.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Disk usage of the attachment store and results of the orphan collector,
+ * as of its last completed run.
+ */
+public class StorageStats {
+
+    private final long totalBytes;
+    private final long blobCount;
+    private final long packedBlobCount;
+    private final long orphansFound;
+    private final long reclaimedBytes;
+    private final long quarantinedBytes;
+    private final long totalReclaimedBytes;
+    private final LocalDateTime lastRunAt;
+    private final long lastRunMillis;
+    private final boolean running;
+
+    public StorageStats(long totalBytes, long blobCount, long packedBlobCount, long orphansFound,
+                        long reclaimedBytes, long quarantinedBytes, long totalReclaimedBytes,
+                        LocalDateTime lastRunAt, long lastRunMillis, boolean running) {
+        this.totalBytes = totalBytes;
+        this.blobCount = blobCount;
+        this.packedBlobCount = packedBlobCount;
+        this.orphansFound = orphansFound;
+        this.reclaimedBytes = reclaimedBytes;
+        this.quarantinedBytes = quarantinedBytes;
+        this.totalReclaimedBytes = totalReclaimedBytes;
+        this.lastRunAt = lastRunAt;
+        this.lastRunMillis = lastRunMillis;
+        this.running = running;
+    }
+
+    public long getTotalBytes() { return totalBytes; }
+
+    public long getBlobCount() { return blobCount; }
+
+    public long getPackedBlobCount() { return packedBlobCount; }
+
+    public long getOrphansFound() { return orphansFound; }
+
+    public long getReclaimedBytes() { return reclaimedBytes; }
+
+    public long getQuarantinedBytes() { return quarantinedBytes; }
+
+    public long getTotalReclaimedBytes() { return totalReclaimedBytes; }
+
+    public LocalDateTime getLastRunAt() { return lastRunAt; }
+
+    public long getLastRunMillis() { return lastRunMillis; }
+
+    public boolean isRunning() { return running; }
+}
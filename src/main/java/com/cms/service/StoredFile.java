@@ -0,0 +1,29 @@
+package com.cms.service;
+
+/**
+ * Result of storing an upload: the blob name it is stored under, the
+ * sanitized name it was uploaded with, and the SHA-256 of its content,
+ * computed while the bytes were written.
+ */
+public class StoredFile {
+
+    private final String fileName;
+    private final String originalName;
+    private final String contentHash;
+    private final long size;
+
+    public StoredFile(String fileName, String originalName, String contentHash, long size) {
+        this.fileName = fileName;
+        this.originalName = originalName;
+        this.contentHash = contentHash;
+        this.size = size;
+    }
+
+    public String getFileName() { return fileName; }
+
+    public String getOriginalName() { return originalName; }
+
+    public String getContentHash() { return contentHash; }
+
+    public long getSize() { return size; }
+}
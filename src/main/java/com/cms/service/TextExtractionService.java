@@ -1,17 +1,25 @@
 package com.cms.service;
 
 import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.text.PDFTextStripper;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
 
 @Service
 public class TextExtractionService {
 
+    // Heap allowed per document in scratch-file mode before spilling to disk
+    private static final long SCRATCH_MAIN_MEMORY = 16 * 1024 * 1024;
+
     /**
      * Extract text from a file based on its type.
      * Supports PDF files — returns extracted text.
@@ -49,13 +57,61 @@ public class TextExtractionService {
 
     private String extractFromPdf(Path filePath) {
         try {
-            PDDocument document = Loader.loadPDF(filePath.toFile());
-            PDFTextStripper stripper = new PDFTextStripper();
-            String text = stripper.getText(document);
-            document.close();
-            return text != null && !text.isBlank() ? text.trim() : "[No readable text found in this PDF]";
+            String text = extractPdfText(filePath);
+            return !text.isBlank() ? text : "[No readable text found in this PDF]";
         } catch (IOException e) {
             return "[Error extracting text from PDF: " + e.getMessage() + "]";
         }
     }
+
+    /**
+     * Raw text of a PDF (trimmed, possibly empty). Unlike extractText,
+     * failures are thrown rather than turned into placeholder text.
+     */
+    public String extractPdfText(Path filePath) throws IOException {
+        try (PDDocument document = Loader.loadPDF(filePath.toFile())) {
+            PDFTextStripper stripper = new PDFTextStripper();
+            String text = stripper.getText(document);
+            return text != null ? text.trim() : "";
+        }
+    }
+
+    /**
+     * Page count of a PDF. With useScratchFile, PDFBox buffers the parsed
+     * document in a temp file beyond a small heap allowance.
+     */
+    public int countPdfPages(Path filePath, boolean useScratchFile) throws IOException {
+        try (PDDocument document = loadPdf(filePath, useScratchFile)) {
+            return document.getNumberOfPages();
+        }
+    }
+
+    /**
+     * Text of each page from startPage to endPage (1-based, inclusive), in
+     * order, parsed from a single loaded document. cancelled is checked
+     * before every page, so a timed-out job stops at the next page even on
+     * threads that are never interrupted.
+     */
+    public List<String> extractPdfPages(Path filePath, int startPage, int endPage, boolean useScratchFile,
+                                        BooleanSupplier cancelled) throws IOException {
+        List<String> pages = new ArrayList<>(endPage - startPage + 1);
+        try (PDDocument document = loadPdf(filePath, useScratchFile)) {
+            PDFTextStripper stripper = new PDFTextStripper();
+            for (int page = startPage; page <= endPage; page++) {
+                if (cancelled.getAsBoolean() || Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("Extraction cancelled");
+                }
+                stripper.setStartPage(page);
+                stripper.setEndPage(page);
+                String text = stripper.getText(document);
+                pages.add(text != null ? text : "");
+            }
+        }
+        return pages;
+    }
+
+    PDDocument loadPdf(Path filePath, boolean useScratchFile) throws IOException {
+        if (!useScratchFile) return Loader.loadPDF(filePath.toFile());
+        return Loader.loadPDF(filePath.toFile(), MemoryUsageSetting.setupMixed(SCRATCH_MAIN_MEMORY).streamCache);
+    }
 }
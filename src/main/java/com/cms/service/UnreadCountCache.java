@@ -0,0 +1,93 @@
+package com.cms.service;
+
+import com.cms.repository.NotificationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-user unread notification counts, kept in a bounded LRU map.
+ * NotificationService adjusts entries as notifications are created, read
+ * and deleted; a missing entry is loaded with one COUNT query, and cached
+ * entries are reconciled against the database every few minutes.
+ */
+@Service
+public class UnreadCountCache {
+
+    private static final int MAX_ENTRIES = 10_000;
+    private static final int RECONCILE_BATCH_SIZE = 1000;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    // Access-ordered, so the least recently used user is evicted first
+    private final Map<Long, Long> counts = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    public long get(Long userId) {
+        synchronized (counts) {
+            Long cached = counts.get(userId);
+            if (cached != null) return cached;
+        }
+        long loaded = notificationRepository.countByUserIdAndReadFalse(userId);
+        synchronized (counts) {
+            Long raced = counts.putIfAbsent(userId, loaded);
+            return raced != null ? raced : loaded;
+        }
+    }
+
+    public void increment(Long userId) {
+        adjust(userId, 1);
+    }
+
+    public void decrement(Long userId) {
+        adjust(userId, -1);
+    }
+
+    private void adjust(Long userId, long delta) {
+        synchronized (counts) {
+            // Only adjust loaded entries; a missing one is loaded fresh on next read
+            counts.computeIfPresent(userId, (id, count) -> Math.max(0, count + delta));
+        }
+    }
+
+    public void evict(Long userId) {
+        synchronized (counts) {
+            counts.remove(userId);
+        }
+    }
+
+    /**
+     * Re-reads the counts of every cached user with grouped COUNT queries,
+     * correcting any drift from concurrent updates.
+     */
+    @Scheduled(fixedRate = 300000, initialDelay = 300000)
+    public void reconcile() {
+        List<Long> userIds;
+        synchronized (counts) {
+            userIds = new ArrayList<>(counts.keySet());
+        }
+
+        for (int i = 0; i < userIds.size(); i += RECONCILE_BATCH_SIZE) {
+            List<Long> batch = userIds.subList(i, Math.min(i + RECONCILE_BATCH_SIZE, userIds.size()));
+            Map<Long, Long> fresh = new LinkedHashMap<>();
+            batch.forEach(id -> fresh.put(id, 0L));
+            for (Object[] row : notificationRepository.countUnreadGroupedByUser(batch)) {
+                fresh.put((Long) row[0], (Long) row[1]);
+            }
+            synchronized (counts) {
+                // replace (not put) so users evicted meanwhile are not re-added
+                fresh.forEach(counts::replace);
+            }
+        }
+    }
+}
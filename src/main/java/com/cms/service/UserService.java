@@ -1,16 +1,20 @@
 package com.cms.service;
 
-import com.cms.model.Contract;
+import com.cms.event.ContractsDeletedEvent;
 import com.cms.model.User;
+import com.cms.repository.ArchivedNotificationRepository;
+import com.cms.repository.AttachmentRepository;
 import com.cms.repository.ContractRepository;
 import com.cms.repository.NotificationRepository;
 import com.cms.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Random;
@@ -24,11 +28,20 @@ public class UserService {
     @Autowired
     private ContractRepository contractRepository;
 
+    @Autowired
+    private AttachmentRepository attachmentRepository;
+
     @Autowired
     private NotificationRepository notificationRepository;
 
     @Autowired
-    private FileStorageService fileStorageService;
+    private ArchivedNotificationRepository archivedNotificationRepository;
+
+    @Autowired
+    private UnreadCountCache unreadCountCache;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
     private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
 
@@ -67,17 +80,28 @@ public class UserService {
 
         User user = optionalUser.get();
 
-        // Delete uploaded files for user's contracts
-        List<Contract> contracts = contractRepository.findByUserId(user.getId());
-        for (Contract contract : contracts) {
-            if (contract.getFileName() != null && !contract.getFileName().isEmpty()) {
-                fileStorageService.deleteFile(contract.getFileName());
+        // Collect the user's contracts and the attachments they reference
+        List<Object[]> contracts = contractRepository.findIdAndFileNameByUserId(user.getId());
+        List<Long> contractIds = new ArrayList<>(contracts.size());
+        List<String> fileNames = new ArrayList<>();
+        for (Object[] row : contracts) {
+            contractIds.add((Long) row[0]);
+            String fileName = (String) row[1];
+            if (fileName != null && !fileName.isEmpty()) {
+                fileNames.add(fileName);
             }
         }
 
-        // Delete contracts, notifications, then the user
-        contractRepository.deleteAll(contracts);
-        notificationRepository.deleteAll(notificationRepository.findByUserIdOrderByCreatedAtDesc(user.getId()));
+        fileNames.addAll(attachmentRepository.findFileNamesByUserId(user.getId()));
+
+        // Delete contracts and notifications with one statement each, then the user.
+        // Attachments are released after commit, since other contracts may share them.
+        attachmentRepository.deleteAllByUserIdInBulk(user.getId());
+        contractRepository.deleteAllByUserIdInBulk(user.getId());
+        eventPublisher.publishEvent(new ContractsDeletedEvent(user.getId(), contractIds, fileNames));
+        notificationRepository.deleteAllByUserIdInBulk(user.getId());
+        archivedNotificationRepository.deleteAllByUserIdInBulk(user.getId());
+        unreadCountCache.evict(user.getId());
         userRepository.delete(user);
         return "success";
     }
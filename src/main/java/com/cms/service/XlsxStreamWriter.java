@@ -0,0 +1,173 @@
+package com.cms.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Minimal forward-only writer for a single-sheet .xlsx workbook.
+ *
+ * Rows go straight into the worksheet entry of the ZIP as they are
+ * written, with strings inline rather than in a shared-string table, so
+ * nothing is kept per row. Supports text, whole numbers and dates.
+ */
+class XlsxStreamWriter {
+
+    // Excel's hard limit, header row included
+    static final int MAX_ROWS = 1_048_576;
+
+    // Longest text a cell can hold
+    private static final int MAX_CELL_CHARS = 32_767;
+
+    private static final LocalDate EXCEL_EPOCH = LocalDate.of(1899, 12, 30);
+
+    private final ZipOutputStream zip;
+    private final Writer sheet;
+    private boolean inRow;
+    private int rows;
+
+    XlsxStreamWriter(OutputStream out, String sheetName) throws IOException {
+        zip = new ZipOutputStream(out);
+        writeEntry("[Content_Types].xml", """
+                <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+                <Types xmlns="http://schemas.openxmlformats.org/package/2006/content-types">
+                <Default Extension="rels" ContentType="application/vnd.openxmlformats-package.relationships+xml"/>
+                <Default Extension="xml" ContentType="application/xml"/>
+                <Override PartName="/xl/workbook.xml" ContentType="application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml"/>
+                <Override PartName="/xl/worksheets/sheet1.xml" ContentType="application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml"/>
+                <Override PartName="/xl/styles.xml" ContentType="application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml"/>
+                </Types>""");
+        writeEntry("_rels/.rels", """
+                <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+                <Relationships xmlns="http://schemas.openxmlformats.org/package/2006/relationships">
+                <Relationship Id="rId1" Type="http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument" Target="xl/workbook.xml"/>
+                </Relationships>""");
+        writeEntry("xl/workbook.xml", """
+                <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+                <workbook xmlns="http://schemas.openxmlformats.org/spreadsheetml/2006/main" xmlns:r="http://schemas.openxmlformats.org/officeDocument/2006/relationships">
+                <sheets><sheet name="%s" sheetId="1" r:id="rId1"/></sheets>
+                </workbook>""".formatted(escape(sheetName)));
+        writeEntry("xl/_rels/workbook.xml.rels", """
+                <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+                <Relationships xmlns="http://schemas.openxmlformats.org/package/2006/relationships">
+                <Relationship Id="rId1" Type="http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet" Target="worksheets/sheet1.xml"/>
+                <Relationship Id="rId2" Type="http://schemas.openxmlformats.org/officeDocument/2006/relationships/styles" Target="styles.xml"/>
+                </Relationships>""");
+        // Style 1 is a yyyy-mm-dd date, style 2 a bold header
+        writeEntry("xl/styles.xml", """
+                <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+                <styleSheet xmlns="http://schemas.openxmlformats.org/spreadsheetml/2006/main">
+                <numFmts count="1"><numFmt numFmtId="164" formatCode="yyyy-mm-dd"/></numFmts>
+                <fonts count="2"><font><sz val="11"/><name val="Calibri"/></font><font><b/><sz val="11"/><name val="Calibri"/></font></fonts>
+                <fills count="2"><fill><patternFill patternType="none"/></fill><fill><patternFill patternType="gray125"/></fill></fills>
+                <borders count="1"><border><left/><right/><top/><bottom/><diagonal/></border></borders>
+                <cellStyleXfs count="1"><xf numFmtId="0" fontId="0" fillId="0" borderId="0"/></cellStyleXfs>
+                <cellXfs count="3">
+                <xf numFmtId="0" fontId="0" fillId="0" borderId="0" xfId="0"/>
+                <xf numFmtId="164" fontId="0" fillId="0" borderId="0" xfId="0" applyNumberFormat="1"/>
+                <xf numFmtId="0" fontId="1" fillId="0" borderId="0" xfId="0" applyFont="1"/>
+                </cellXfs>
+                </styleSheet>""");
+
+        zip.putNextEntry(new ZipEntry("xl/worksheets/sheet1.xml"));
+        sheet = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8), 64 * 1024);
+        sheet.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                + "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"><sheetData>");
+    }
+
+    private void writeEntry(String name, String xml) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(xml.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+    /**
+     * Start a new row. Returns false once the sheet is full.
+     */
+    boolean startRow() throws IOException {
+        endRow();
+        if (rows >= MAX_ROWS) return false;
+        sheet.write("<row>");
+        inRow = true;
+        rows++;
+        return true;
+    }
+
+    void header(String value) throws IOException {
+        sheet.write("<c t=\"inlineStr\" s=\"2\"><is><t>");
+        sheet.write(escape(value));
+        sheet.write("</t></is></c>");
+    }
+
+    void text(String value) throws IOException {
+        if (value == null || value.isEmpty()) {
+            sheet.write("<c/>");
+            return;
+        }
+        if (value.length() > MAX_CELL_CHARS) value = value.substring(0, MAX_CELL_CHARS);
+        sheet.write("<c t=\"inlineStr\"><is><t xml:space=\"preserve\">");
+        sheet.write(escape(value));
+        sheet.write("</t></is></c>");
+    }
+
+    void number(long value) throws IOException {
+        sheet.write("<c><v>" + value + "</v></c>");
+    }
+
+    void date(LocalDate value) throws IOException {
+        if (value == null) {
+            sheet.write("<c/>");
+            return;
+        }
+        sheet.write("<c s=\"1\"><v>" + ChronoUnit.DAYS.between(EXCEL_EPOCH, value) + "</v></c>");
+    }
+
+    void flush() throws IOException {
+        sheet.flush();
+        zip.flush();
+    }
+
+    /**
+     * Completes the workbook. The underlying stream is left open.
+     */
+    void finish() throws IOException {
+        endRow();
+        sheet.write("</sheetData></worksheet>");
+        sheet.flush();
+        zip.closeEntry();
+        zip.finish();
+        zip.flush();
+    }
+
+    private void endRow() throws IOException {
+        if (inRow) {
+            sheet.write("</row>");
+            inRow = false;
+        }
+    }
+
+    // XML-escapes and drops characters XML 1.0 cannot carry
+    private static String escape(String value) {
+        StringBuilder out = new StringBuilder(value.length() + 16);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '&' -> out.append("&amp;");
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '"' -> out.append("&quot;");
+                default -> {
+                    if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r') out.append(c);
+                }
+            }
+        }
+        return out.toString();
+    }
+}
@@ -5,3 +5,17 @@ UPDATE contracts SET contract_type = 'NDA' WHERE contract_type = 'NDA';
 UPDATE contracts SET contract_type = 'Lease' WHERE contract_type = 'LEASE';
 UPDATE contracts SET contract_type = 'Sales' WHERE contract_type = 'SALES';
 UPDATE contracts SET contract_type = 'Partnership' WHERE contract_type = 'PARTNERSHIP';
+
+-- Seed the pooled id generators (allocationSize 50) above the ids already in use.
+-- Hibernate hands out next_val - 49 .. next_val, so next_val = MAX(id) + 50 starts at MAX(id) + 1.
+-- GREATEST keeps a running generator from ever moving backwards.
+INSERT IGNORE INTO id_sequences (sequence_name, next_val) VALUES ('users', 0);
+UPDATE id_sequences SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(id), 0) + 50 FROM users)) WHERE sequence_name = 'users';
+INSERT IGNORE INTO id_sequences (sequence_name, next_val) VALUES ('contracts', 0);
+UPDATE id_sequences SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(id), 0) + 50 FROM contracts)) WHERE sequence_name = 'contracts';
+INSERT IGNORE INTO id_sequences (sequence_name, next_val) VALUES ('contract_attachments', 0);
+UPDATE id_sequences SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(id), 0) + 50 FROM contract_attachments)) WHERE sequence_name = 'contract_attachments';
+INSERT IGNORE INTO id_sequences (sequence_name, next_val) VALUES ('notifications', 0);
+UPDATE id_sequences SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(id), 0) + 50 FROM notifications)) WHERE sequence_name = 'notifications';
+INSERT IGNORE INTO id_sequences (sequence_name, next_val) VALUES ('document_pages', 0);
+UPDATE id_sequences SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(id), 0) + 50 FROM document_pages)) WHERE sequence_name = 'document_pages';